@@ -0,0 +1,63 @@
+package com.work.task.benchmark;
+
+import com.work.task.TaskApplication;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import com.work.task.service.TaskService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application without the web server on a private in-memory database
+ * and seeds it with generated tasks
+ */
+final class BenchmarkContext {
+    static final int USERS = 1000;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param name database name, one per benchmark state so datasets never mix
+     * @return started context, to be closed in the benchmark tear down
+     */
+    static ConfigurableApplicationContext start(String name) {
+        return new SpringApplicationBuilder(TaskApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                        "spring.cache.type=none",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "spring.main.banner-mode=off")
+                .run();
+    }
+
+    static void seed(TaskService taskService, int rows) {
+        int chunkSize = 5000;
+        for (int start = 0; start < rows; start += chunkSize) {
+            List<Task> chunk = new ArrayList<>(chunkSize);
+            for (int i = start; i < Math.min(rows, start + chunkSize); i++) {
+                chunk.add(task(i));
+            }
+            taskService.insertChunk(chunk);
+        }
+    }
+
+    static Task task(int i) {
+        TaskStatus[] statuses = TaskStatus.values();
+        Task task = new Task();
+        task.setTaskName("Task " + i);
+        task.setTaskDescription("Description of generated task number " + i);
+        task.setTaskStatus(statuses[i % statuses.length]);
+        task.setUserName(user(i));
+        return task;
+    }
+
+    static String user(int i) {
+        return "user-" + (i % USERS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.work.task.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH json result with a baseline produced the same way and exits with status 1
+ * when any benchmark present in both is worse than the baseline by more than the threshold.
+ * Throughput scores are better when higher, all other modes when lower. A missing baseline fails
+ * the check too, unless bootstrap is set, in which case the result becomes the baseline.
+ * Usage: BenchmarkRegressionCheck result.json baseline.json 0.10 [bootstrap]
+ */
+public final class BenchmarkRegressionCheck {
+
+    private BenchmarkRegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path result = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        double threshold = Double.parseDouble(args[2]);
+        boolean bootstrap = args.length > 3 && Boolean.parseBoolean(args[3]);
+        if (!Files.exists(baseline)) {
+            if (!bootstrap) {
+                System.out.println("No JMH baseline at " + baseline + ", run with -Djmh.bootstrap=true to record "
+                        + result + " as the baseline");
+                System.exit(1);
+            }
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline);
+            System.out.println("Recorded " + result + " as the JMH baseline " + baseline);
+            return;
+        }
+        List<String> regressions = compare(read(result), read(baseline), threshold);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(System.out::println);
+            System.exit(1);
+        }
+        System.out.println("No JMH regression above " + Math.round(threshold * 100) + "% against " + baseline);
+    }
+
+    static List<String> compare(Map<String, JsonNode> results, Map<String, JsonNode> baselines, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        results.forEach((key, run) -> {
+            JsonNode base = baselines.get(key);
+            if (base == null) {
+                return;
+            }
+            double score = run.path("primaryMetric").path("score").asDouble();
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(run.path("mode").asText());
+            double change = higherIsBetter ? (baseScore - score) / baseScore : (score - baseScore) / baseScore;
+            if (change > threshold) {
+                regressions.add(String.format("REGRESSION %s: %.3f -> %.3f %s (%.1f%% worse)", key, baseScore, score,
+                        run.path("primaryMetric").path("scoreUnit").asText(), change * 100));
+            }
+        });
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> read(Path path) throws IOException {
+        Map<String, JsonNode> runs = new LinkedHashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(path.toFile())) {
+            runs.put(run.path("benchmark").asText() + run.path("params"), run);
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,54 @@
+package com.work.task.benchmark;
+
+import com.work.task.entity.Task;
+import com.work.task.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link com.work.task.service.TaskService#saveTasks(java.util.List)} at several batch sizes.
+ * The score is the time to save one batch; divide the batch size by it for rows/sec.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskBulkInsertBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private List<Task> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bulk" + batchSize);
+        taskService = context.getBean(TaskService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void createBatch() {
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(BenchmarkContext.task(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Task> saveTasks() {
+        return taskService.saveTasks(batch);
+    }
+}
@@ -0,0 +1,81 @@
+package com.work.task.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskResponseEntity;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Jackson serialization of {@link com.work.task.entity.TaskResponseEntity} pages in each format
+ * served by the web layer, plain and gzip compressed as done by server.compression.
+ * The bytes on the wire of every format are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskSerializationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectWriter writer;
+    private TaskResponseEntity response;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory(format)).build();
+        writer = objectMapper.writerFor(TaskResponseEntity.class);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Task task = BenchmarkContext.task(i);
+            task.setId(i + 1);
+            tasks.add(task);
+        }
+        response = new TaskResponseEntity(size, tasks, size);
+        System.out.printf("%s, %d tasks: %d bytes, %d bytes gzip%n",
+                format, size, serializeTaskResponseEntity().length, serializeTaskResponseEntityGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskResponseEntity() throws IOException {
+        return writer.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeTaskResponseEntityGzip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, response);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static JsonFactory factory(String format) {
+        switch (format) {
+            case "cbor":
+                return new CBORFactory();
+            case "smile":
+                return new SmileFactory();
+            default:
+                return new JsonFactory();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.work.task.benchmark;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import com.work.task.service.TaskService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and patch hot paths of {@link com.work.task.service.TaskService} against datasets of
+ * 1k to 1M tasks. Caching is disabled so every operation measures the database path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private int firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("service" + rows);
+        taskService = context.getBean(TaskService.class);
+        BenchmarkContext.seed(taskService, rows);
+        firstId = taskService.getAllTasks(0, 1).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Task findTaskById() {
+        return taskService.findTaskById(randomId());
+    }
+
+    @Benchmark
+    public List<Task> searchByTaskStatus() {
+        TaskStatus[] statuses = TaskStatus.values();
+        return taskService.searchByTaskStatus(statuses[ThreadLocalRandom.current().nextInt(statuses.length)]);
+    }
+
+    @Benchmark
+    public List<Task> searchByUserName() {
+        return taskService.searchByUserName(BenchmarkContext.user(ThreadLocalRandom.current().nextInt(BenchmarkContext.USERS)));
+    }
+
+    @Benchmark
+    public Task patchTask() {
+        Task patch = new Task();
+        patch.setTaskStatus(TaskStatus.DONE);
+        return taskService.patchTask(randomId(), patch, null);
+    }
+
+    private int randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,13 @@
+package com.work.task.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables the Caffeine backed caches configured with spring.cache.* properties.
+ * Hit, miss and eviction counts are published as cache.* metrics.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
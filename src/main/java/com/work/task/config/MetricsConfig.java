@@ -0,0 +1,19 @@
+package com.work.task.config;
+
+import io.micrometer.core.aop.CountedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@link io.micrometer.core.annotation.Counted} on service methods. Each count is
+ * tagged with class, method, result and exception.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public CountedAspect countedAspect(MeterRegistry meterRegistry) {
+        return new CountedAspect(meterRegistry);
+    }
+}
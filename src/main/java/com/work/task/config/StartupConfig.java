@@ -0,0 +1,69 @@
+package com.work.task.config;
+
+import com.work.task.service.TaskChangeFeed;
+import com.work.task.service.TaskMemoryIndex;
+import com.work.task.service.TaskSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Startup related settings:
+ * <ul>
+ *     <li>runtime hints of the native image, see {@link TaskRuntimeHints}</li>
+ *     <li>with spring.main.lazy-initialization (the lazy profile) beans are created on first use,
+ *     except the indexes and the change feed which must follow every write from startup</li>
+ *     <li>task.startup.exit-after-ready stops the application once started, for the AppCDS
+ *     training run of the cds build profile</li>
+ * </ul>
+ */
+@Configuration
+@ImportRuntimeHints(TaskRuntimeHints.class)
+public class StartupConfig {
+    private final static Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerTaskListeners() {
+        return LazyInitializationExcludeFilter.forBeanTypes(TaskChangeFeed.class, TaskSearchIndex.class, TaskMemoryIndex.class);
+    }
+
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @ConditionalOnProperty(name = "task.startup.exit-after-ready", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> exitAfterReady() {
+        return event -> {
+            log.info("Started in {} ms (JVM uptime {} ms, peak RSS {}), exiting as task.startup.exit-after-ready is set",
+                    event.getTimeTaken() == null ? -1 : event.getTimeTaken().toMillis(),
+                    ManagementFactory.getRuntimeMXBean().getUptime(), peakRss());
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+
+    /**
+     * @return VmHWM of /proc/self/status, unknown on other platforms than Linux
+     */
+    private static String peakRss() {
+        try (Stream<String> lines = Files.lines(Path.of("/proc/self/status"))) {
+            return lines.filter(line -> line.startsWith("VmHWM:"))
+                    .map(line -> line.substring("VmHWM:".length()).trim())
+                    .findFirst().orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
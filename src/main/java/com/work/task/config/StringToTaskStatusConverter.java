@@ -0,0 +1,18 @@
+package com.work.task.config;
+
+import com.work.task.entity.TaskStatus;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Binds path variables and request parameters to {@link com.work.task.entity.TaskStatus}
+ * with the same lenient parsing as json, so "In Progress" and "IN_PROGRESS" both work
+ */
+@Component
+public class StringToTaskStatusConverter implements Converter<String, TaskStatus> {
+
+    @Override
+    public TaskStatus convert(String source) {
+        return TaskStatus.fromValue(source);
+    }
+}
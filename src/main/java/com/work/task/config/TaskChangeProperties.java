@@ -0,0 +1,26 @@
+package com.work.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * task.changes.* settings of the change feed
+ */
+@Data
+@ConfigurationProperties("task.changes")
+public class TaskChangeProperties {
+    /** Events kept in the ring buffer for catch-up and slow subscribers */
+    private int capacity = 10000;
+    /** Threads sending events to subscribers, shared by all of them */
+    private int dispatchThreads = 4;
+    /** Events sent to one subscriber before the dispatcher moves on to the next */
+    private int dispatchBatch = 256;
+    /** Time a subscriber may take to accept a batch before it is dropped */
+    private Duration sendTimeout = Duration.ofSeconds(10);
+    /** Interval of the keep-alive comment detecting disconnected subscribers */
+    private Duration heartbeat = Duration.ofSeconds(15);
+    /** Lifetime of a subscription, clients reconnect with Last-Event-ID */
+    private Duration timeout = Duration.ofMinutes(30);
+}
@@ -0,0 +1,22 @@
+package com.work.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * task.due.* settings of the due task scheduler
+ */
+@Data
+@ConfigurationProperties("task.due")
+public class TaskDueProperties {
+    /** Move open tasks to Overdue once their due date has passed */
+    private boolean enabled = true;
+    /** Tasks moved to Overdue per UPDATE statement and transaction */
+    private int batchSize = 500;
+    /** Longest time between two scans, bounding how late a missed change is picked up */
+    private Duration maxSleep = Duration.ofMinutes(10);
+    /** Time before a failed scan is retried */
+    private Duration retryDelay = Duration.ofSeconds(30);
+}
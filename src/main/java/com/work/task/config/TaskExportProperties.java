@@ -0,0 +1,17 @@
+package com.work.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * task.export.* settings of the streamed task export
+ */
+@Data
+@ConfigurationProperties("task.export")
+public class TaskExportProperties {
+    /** Rows fetched from the database cursor per round trip */
+    private int fetchSize = 1000;
+    /** Output buffered before it is written to the response */
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+}
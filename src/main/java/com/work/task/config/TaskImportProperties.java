@@ -0,0 +1,22 @@
+package com.work.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+/**
+ * task.import.* settings of the asynchronous import worker pool
+ */
+@Data
+@ConfigurationProperties("task.import")
+public class TaskImportProperties {
+    /** Number of jobs imported concurrently */
+    private int poolSize = 2;
+    /** Jobs waiting for a worker before new submissions are rejected with 503 */
+    private int queueCapacity = 8;
+    /** Directory where submitted bodies are spooled until their job completes */
+    private Path spoolDir = Path.of(System.getProperty("java.io.tmpdir"), "task-import");
+    /** Seconds clients are asked to wait in Retry-After when the queue is full */
+    private int retryAfterSeconds = 30;
+}
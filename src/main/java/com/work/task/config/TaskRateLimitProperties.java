@@ -0,0 +1,43 @@
+package com.work.task.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * task.rate-limit.* settings of the per client admission control in front of the /tasks endpoints
+ */
+@Data
+@ConfigurationProperties("task.rate-limit")
+public class TaskRateLimitProperties {
+    /** Limit requests per client and shed load on expensive routes */
+    private boolean enabled = false;
+    /** Header identifying the client; the remote address is used when it is absent or not a known key */
+    private String clientHeader = "X-API-Key";
+    /** API keys given their own budgets, any other client is limited by its remote address */
+    private Set<String> apiKeys = new HashSet<>();
+    /** Budget of the full table reads, bulk writes, searches and stats of one client */
+    private Budget expensive = new Budget(20, 40);
+    /** Budget of every other /tasks request of one client */
+    private Budget cheap = new Budget(200, 400);
+    /** Expensive requests processed concurrently by all clients before new ones get 503 */
+    private int maxConcurrentExpensive = 16;
+    /** Seconds clients are asked to wait in Retry-After when the server sheds load */
+    private int sheddingRetryAfterSeconds = 1;
+    /** Clients tracked at most, the least recently seen ones are forgotten beyond it */
+    private int maxClients = 100_000;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Budget {
+        /** Sustained requests per second */
+        private double ratePerSecond;
+        /** Requests accepted at once after an idle period */
+        private int burst;
+    }
+}
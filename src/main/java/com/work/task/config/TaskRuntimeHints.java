@@ -0,0 +1,37 @@
+package com.work.task.config;
+
+import com.work.task.entity.ImportJob;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskChangesResponseEntity;
+import com.work.task.entity.TaskCountResponseEntity;
+import com.work.task.entity.TaskImportResponseEntity;
+import com.work.task.entity.TaskResponseEntity;
+import com.work.task.entity.TaskStatsResponseEntity;
+import com.work.task.entity.TaskSyncResponseEntity;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+
+/**
+ * Reflection and resource hints for the native image. Spring AOT already covers the
+ * controller signatures; these add the Jackson bindings of the documents also written outside of
+ * them (the change feed, NDJSON streams, import jobs, the HATEOAS model of getOneTask) and the
+ * resources loaded by name at runtime.
+ */
+public class TaskRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(), Task.class, TaskResponseEntity.class,
+                TaskChangeEvent.class, TaskChangesResponseEntity.class, TaskSyncResponseEntity.class,
+                TaskStatsResponseEntity.class, TaskCountResponseEntity.class, TaskImportResponseEntity.class,
+                ImportJob.class, EntityModel.class, Link.class);
+        hints.resources()
+                .registerPattern("db/migration/*.sql")
+                .registerPattern("META-INF/services/org.apache.lucene.*");
+    }
+}
@@ -0,0 +1,24 @@
+package com.work.task.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * task.write-batch.* settings of the optional write combining of TaskService.saveTask
+ */
+@Data
+@ConfigurationProperties("task.write-batch")
+public class TaskWriteBatchProperties {
+    /** Combine concurrent saveTask calls into batched transactions */
+    private boolean enabled = false;
+    /** Writes flushed in one transaction at most */
+    private int maxBatchSize = 100;
+    /** Longest time a write waits for others to join its batch */
+    private Duration maxDelay = Duration.ofMillis(5);
+    /** Writes waiting for a flush before callers fall back to their own transaction */
+    private int queueCapacity = 10000;
+    /** Threads flushing batches concurrently */
+    private int flushThreads = 2;
+}
@@ -0,0 +1,57 @@
+package com.work.task.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * task.execution.mode=virtual runs Tomcat request handling and Spring MVC async work
+ * (streamed responses) on virtual threads, one per task, instead of the bounded platform
+ * thread pool. Blocking JPA calls then park cheaply and the Hikari pool, not the number of
+ * threads, bounds concurrency. Requires a Java 21+ runtime, startup fails otherwise.
+ */
+@Configuration
+@ConditionalOnProperty(name = "task.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+    private final static Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    private final ExecutorService virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        log.info("Request handling runs on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    @Bean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        virtualThreadExecutor.shutdown();
+    }
+
+    /**
+     * Looked up reflectively so the application still compiles and runs in platform mode on Java 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("task.execution.mode=virtual requires Java 21 or later, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
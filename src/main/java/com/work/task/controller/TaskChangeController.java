@@ -0,0 +1,48 @@
+package com.work.task.controller;
+
+import com.work.task.config.TaskChangeProperties;
+import com.work.task.entity.TaskChangesResponseEntity;
+import com.work.task.service.TaskChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@CrossOrigin(origins = { "http://localhost:8080"})
+@RestController
+@RequestMapping("/tasks/changes")
+public class TaskChangeController {
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    @Autowired
+    private TaskChangeFeed taskChangeFeed;
+    @Autowired
+    private TaskChangeProperties properties;
+
+    /**
+     * Streams task changes as Server-Sent Events named CREATED, UPDATED, DELETED or BULK_UPDATED,
+     * with the change sequence as event id. A reset event means changes were missed, the client
+     * then reloads the tasks.
+     * @param since sequence to resume after, only new changes are sent when absent
+     * @param lastEventId sequence sent by a reconnecting EventSource, takes precedence over since
+     * @return event stream of {@link com.work.task.entity.TaskChangeEvent}
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = LAST_EVENT_ID, required = false) Long lastEventId) {
+        return taskChangeFeed.subscribe(lastEventId != null ? lastEventId : since);
+    }
+
+    /**
+     * Changes committed after the given sequence, for clients catching up without a stream,
+     * e.g. /tasks/changes?since=120&limit=500
+     * @param since sequence of the last change seen, 0 for all buffered changes
+     * @param limit maximum number of changes returned
+     * @return {@link com.work.task.entity.TaskChangesResponseEntity} with the sequence to resume from
+     */
+    @GetMapping
+    public TaskChangesResponseEntity getChanges(@RequestParam(defaultValue = "0") long since,
+                                                @RequestParam(defaultValue = "1000") int limit) {
+        return taskChangeFeed.changesSince(since, Math.min(limit, properties.getCapacity()));
+    }
+}
@@ -1,54 +1,141 @@
 package com.work.task.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.work.task.entity.Task;
+import com.work.task.entity.TaskCountResponseEntity;
+import com.work.task.entity.TaskImportResponseEntity;
 import com.work.task.entity.TaskResponseEntity;
+import com.work.task.entity.TaskStatsResponseEntity;
+import com.work.task.entity.TaskStatus;
+import com.work.task.entity.TaskSyncResponseEntity;
+import com.work.task.exception.TaskVersionMismatchException;
 import com.work.task.service.TaskService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
-
 @CrossOrigin(origins = { "http://localhost:8080"})
 @RestController
 @RequestMapping("/tasks")
 public class TaskController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private TaskService taskService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
+    /**
+     * Path and query of the all-tasks link, resolved once from the getAllTasks mapping
+     * rather than through a method invocation proxy on every getOneTask
+     */
+    private String allTasksPath;
+
+    @PostConstruct
+    void resolveLinks() {
+        allTasksPath = MvcUriComponentsBuilder.fromMethodName(UriComponentsBuilder.newInstance(),
+                TaskController.class, "getAllTasks", null, DEFAULT_PAGE_SIZE).toUriString();
+    }
 
     /**
-     *get all Tasks and count of tasks in TaskResponseEntity
+     *get one keyset page of Tasks and count of all tasks in TaskResponseEntity
+     * @param after id of the last task already seen, taken from nextCursor of the previous page
+     * @param limit page size, capped at {@value #MAX_PAGE_SIZE}
      * @return {@link com.work.task.entity.TaskResponseEntity}
-     * having list of {@link com.work.task.entity.Task} objects and count
+     * having list of {@link com.work.task.entity.Task} objects, count and nextCursor
      */
     @GetMapping("/")
-    public TaskResponseEntity getAllTasks(){
-        List<Task> taskList = taskService.getAllTasks();
+    public TaskResponseEntity getAllTasks(@RequestParam(required = false) Integer after,
+                                          @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit){
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Task> taskList = taskService.getAllTasks(after == null ? 0 : after, pageSize);
         TaskResponseEntity taskResponseEntity = new TaskResponseEntity();
+        taskResponseEntity.setCount(taskService.countTasks());
         if(taskList!=null && taskList.size() > 0){
             taskResponseEntity.setTaskList(taskList);
-            taskResponseEntity.setCount(taskList.size());
+            if(taskList.size() == pageSize){
+                taskResponseEntity.setNextCursor(taskList.get(taskList.size() - 1).getId());
+            }
         }
         return  taskResponseEntity;
     }
+
+    /**
+     * Streams all tasks as newline delimited JSON without loading them in memory
+     * @param after id to start after, to resume an interrupted stream
+     * @return one {@link com.work.task.entity.Task} json object per line
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllTasks(@RequestParam(required = false) Integer after){
+        ObjectWriter writer = objectMapper.writerFor(Task.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                taskService.streamTasks(after == null ? 0 : after, task -> {
+                    try {
+                        writer.writeValue(generator, task);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeRaw('\n');
+            }
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
     /**
      * Returns {@link org.springframework.hateoas.EntityModel} of
-     * {@link com.work.task.entity.Task} Object
+     * {@link com.work.task.entity.Task} Object, with the task version as ETag
      * @param id id of record to be retrieved
+     * @param ifNoneMatch ETag(s) the client already has, answered with 304 when current
      * @return Entity Model of Task entity with HATEOAS
      */
     @GetMapping("/{id}")
-    public EntityModel<Task> getOneTask(@PathVariable int id){
+    public ResponseEntity<EntityModel<Task>> getOneTask(@PathVariable int id,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         Task task = taskService.findTaskById(id);
+        String eTag = eTag(task);
+        if(ifNoneMatch != null && eTagMatches(ifNoneMatch, task.getVersion())){
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
         EntityModel<Task> model = EntityModel.of(task);
-        WebMvcLinkBuilder linkTo =
-                WebMvcLinkBuilder.linkTo(methodOn(this.getClass()).getAllTasks());
-        model.add(linkTo.withRel("all-tasks"));
-        return model;
+        model.add(Link.of(ServletUriComponentsBuilder.fromCurrentContextPath().toUriString() + allTasksPath, "all-tasks"));
+        return ResponseEntity.ok().eTag(eTag).body(model);
+    }
+
+    /**
+     * Task and its subtasks at any depth, e.g. /tasks/12/subtasks
+     * @param id id of the root task
+     * @return the task first, then its subtasks ordered by depth and id, linked by their parentId
+     */
+    @GetMapping("/{id}/subtasks")
+    public List<Task> getSubtaskTree(@PathVariable int id){
+        return taskService.getSubtaskTree(id);
     }
 
     /**
@@ -71,15 +158,32 @@ public class TaskController {
         return taskService.saveTasks(tasks);
     }
 
+    /**
+     * Bulk import of tasks, parsed one by one from the request body so the whole list
+     * is never held in memory, and inserted in batched chunks each committed on its own
+     * @param body json array of tasks or newline delimited json tasks
+     * @return {@link com.work.task.entity.TaskImportResponseEntity} with the result of every chunk
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/addTasks/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public TaskImportResponseEntity addTasksBulk(InputStream body) throws IOException {
+        try (MappingIterator<Task> tasks = objectMapper.readerFor(Task.class).readValues(body)) {
+            return taskService.importTasks(tasks);
+        }
+    }
+
     /**
      * Updates Task on the basis of id making use of PutMapping
      * @param id - id of record to be updated
      * @param task - task json object in RequestBody
-     * @return Task - updated Task object
+     * @param ifMatch - ETag the client last saw, the update is refused with 412 if the task changed since
+     * @return Task - updated Task object with its new ETag
      */
     @PutMapping("/{id}")
-    public Task updateTask(@PathVariable int id,@RequestBody Task task){
-         return taskService.updateTask(id,task);
+    public ResponseEntity<Task> updateTask(@PathVariable int id,@RequestBody Task task,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Task updated = taskService.updateTask(id, task, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updated)).body(updated);
     }
 
 
@@ -87,11 +191,29 @@ public class TaskController {
      * Updates Task with Patch mapping
      * @param id of the object to be updated
      * @param task json object to be updated
-     * @return Updated Task object
+     * @param ifMatch ETag the client last saw, the update is refused with 412 if the task changed since
+     * @return Updated Task object with its new ETag
      */
     @PatchMapping("/{id}")
-    public Task patchTask(@PathVariable int id,@RequestBody Task task){
-        return taskService.patchTask(id,task);
+    public ResponseEntity<Task> patchTask(@PathVariable int id,@RequestBody Task task,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Task patched = taskService.patchTask(id, task, expectedVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(patched)).body(patched);
+    }
+
+    /**
+     * Sets taskStatus and/or userName on every task matching the filter in one set-based update,
+     * e.g. PATCH /tasks?status=In Progress&user=ABC with body {"taskStatus":"Done"}
+     * @param status status of the tasks to be updated, optional
+     * @param user user of the tasks to be updated, optional
+     * @param task json object holding the taskStatus and/or userName to be set
+     * @return {@link com.work.task.entity.TaskCountResponseEntity} with the number of updated tasks
+     */
+    @PatchMapping({"", "/"})
+    public TaskCountResponseEntity patchTasks(@RequestParam(required = false) TaskStatus status,
+                                              @RequestParam(required = false) String user,
+                                              @RequestBody Task task){
+        return new TaskCountResponseEntity(taskService.patchTasks(status, user, task));
     }
 
     /**
@@ -104,17 +226,99 @@ public class TaskController {
         return taskService.deleteTaskById(id);
     }
 
+    /**
+     * Deletes tasks in bulk, either the ids given in the body or every task matching the filter,
+     * e.g. DELETE /tasks?status=Done
+     * @param status status of the tasks to be deleted, optional
+     * @param user user of the tasks to be deleted, optional
+     * @param ids json array of ids to be deleted, optional
+     * @return {@link com.work.task.entity.TaskCountResponseEntity} with the number of deleted tasks
+     */
+    @DeleteMapping({"", "/"})
+    public TaskCountResponseEntity deleteTasks(@RequestParam(required = false) TaskStatus status,
+                                               @RequestParam(required = false) String user,
+                                               @RequestBody(required = false) List<Integer> ids){
+        return new TaskCountResponseEntity(taskService.deleteTasks(ids, status, user));
+    }
+
     /**
      * Search Tasks on the basis of Status
      * @param status status with which Tasks to be searched
      * @return List of Task matching the status
      */
     @GetMapping("/search/{status}")
-    public List<Task> searchByTaskStatus(@PathVariable String status){
+    public List<Task> searchByTaskStatus(@PathVariable TaskStatus status){
         return taskService.searchByTaskStatus(status);
     }
 
 
+    /**
+     * Delta sync: tasks written and ids of tasks deleted since the client's last sync, in revision order,
+     * e.g. /tasks/sync?sinceRevision=1200&afterId=57&limit=500. The client passes back the revision and
+     * afterId of each response and syncs again while hasMore is set.
+     * @param sinceRevision revision of the last sync, 0 for a full sync
+     * @param afterId afterId of the last sync, 0 if none
+     * @param limit maximum number of changes in the response
+     * @return {@link com.work.task.entity.TaskSyncResponseEntity}
+     */
+    @GetMapping("/sync")
+    public TaskSyncResponseEntity syncTasks(@RequestParam(defaultValue = "0") long sinceRevision,
+                                            @RequestParam(defaultValue = "0") int afterId,
+                                            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit){
+        return taskService.syncTasks(sinceRevision, afterId, Math.min(Math.max(limit, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Count of Tasks per status and per user, computed by the database
+     * so dashboards do not have to fetch and count all tasks
+     * @return {@link com.work.task.entity.TaskStatsResponseEntity}
+     */
+    @GetMapping("/stats")
+    public TaskStatsResponseEntity getTaskStats(){
+        return taskService.getTaskStats();
+    }
+
+    /**
+     * Search Tasks by status and/or user with pagination and sorting,
+     * e.g. /tasks/search?status=In Progress&user=ABC&page=0&size=50&sort=taskName,desc
+     * @param status status to be matched, optional
+     * @param user user name to be matched, optional
+     * @param pageable page, size and sort parameters
+     * @return {@link com.work.task.entity.TaskResponseEntity} having the page of Tasks
+     * and the total count of matching Tasks
+     */
+    @GetMapping("/search")
+    public TaskResponseEntity searchTasks(@RequestParam(required = false) TaskStatus status,
+                                          @RequestParam(required = false) String user,
+                                          Pageable pageable){
+        Page<Task> page = taskService.searchTasks(status, user, pageable);
+        TaskResponseEntity taskResponseEntity = new TaskResponseEntity();
+        taskResponseEntity.setCount(page.getTotalElements());
+        if(page.hasContent()){
+            taskResponseEntity.setTaskList(page.getContent());
+        }
+        return taskResponseEntity;
+    }
+
+    /**
+     * Keyword search over task name and description, ranked by relevance,
+     * e.g. /tasks/search/text?q=aws certification&page=0&size=20
+     * @param q query text; all words must match, "phrases", prefix* and taskName:word are supported
+     * @param pageable page and size parameters
+     * @return {@link com.work.task.entity.TaskResponseEntity} having the page of Tasks, best match first,
+     * and the total count of matching Tasks
+     */
+    @GetMapping("/search/text")
+    public TaskResponseEntity searchByText(@RequestParam String q, Pageable pageable){
+        Page<Task> page = taskService.searchByText(q, pageable);
+        TaskResponseEntity taskResponseEntity = new TaskResponseEntity();
+        taskResponseEntity.setCount(page.getTotalElements());
+        if(page.hasContent()){
+            taskResponseEntity.setTaskList(page.getContent());
+        }
+        return taskResponseEntity;
+    }
+
     /**
      * To find all tasks associated with given User
      * @param userName User's name
@@ -125,4 +329,48 @@ public class TaskController {
         return taskService.searchByUserName(userName);
     }
 
+    private static String eTag(Task task) {
+        return eTagValue(task.getVersion());
+    }
+
+    /**
+     * @param header If-None-Match value, a list of ETags or *
+     * @param version current version of the task
+     * @return true if any listed ETag, weak or strong, is the current version
+     */
+    static boolean eTagMatches(String header, long version) {
+        for (String eTag : header.split(",")) {
+            String value = eTag.trim();
+            if (value.equals("*") || value.equals(eTagValue(version)) || value.equals("W/" + eTagValue(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Match uses the strong comparison (RFC 9110, 13.1.1), so a weak ETag never matches
+     * @param ifMatch If-Match value holding a single ETag, or * or null for an unconditional update
+     * @return version the client expects, null for an unconditional update
+     * @throws TaskVersionMismatchException if the ETag is weak or not a task ETag
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            throw new TaskVersionMismatchException("If-Match does not match weak ETags: " + ifMatch);
+        }
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new TaskVersionMismatchException("If-Match does not hold a task ETag: " + ifMatch);
+        }
+    }
+
+    private static String eTagValue(long version) {
+        return "\"" + version + "\"";
+    }
+
 }
@@ -0,0 +1,65 @@
+package com.work.task.controller;
+
+import com.work.task.entity.TaskStatus;
+import com.work.task.service.TaskExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.zip.GZIPOutputStream;
+
+@CrossOrigin(origins = { "http://localhost:8080"})
+@RestController
+@RequestMapping("/tasks/export")
+public class TaskExportController {
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private TaskExportService taskExportService;
+
+    /**
+     * Streams every task, or those matching the optional filters, ordered by id, e.g.
+     * /tasks/export?format=ndjson&amp;status=Done&amp;gzip=true. An interrupted download is resumed
+     * with after set to the id of its last complete row; byte ranges are not supported as the
+     * content is generated.
+     * @param format csv (with a header line) or ndjson
+     * @param status status of the exported tasks, optional
+     * @param user user of the exported tasks, optional
+     * @param after id to export after, to resume an interrupted export
+     * @param gzip compress the response, sent with Content-Encoding gzip
+     * @return one task per line
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportTasks(@RequestParam(defaultValue = "csv") String format,
+                                                             @RequestParam(required = false) TaskStatus status,
+                                                             @RequestParam(required = false) String user,
+                                                             @RequestParam(defaultValue = "0") int after,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        TaskExportService.Format exportFormat = TaskExportService.Format.fromValue(format);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, GZIP_BUFFER_SIZE)) {
+                    taskExportService.export(exportFormat, status, user, after, compressed);
+                }
+            } else {
+                taskExportService.export(exportFormat, status, user, after, out);
+            }
+        };
+        boolean csv = exportFormat == TaskExportService.Format.CSV;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "tasks.csv" : "tasks.ndjson").build().toString())
+                .header(HttpHeaders.ACCEPT_RANGES, "none");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,72 @@
+package com.work.task.controller;
+
+import com.work.task.config.TaskImportProperties;
+import com.work.task.entity.ImportJob;
+import com.work.task.exception.ImportQueueFullException;
+import com.work.task.service.TaskImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+@CrossOrigin(origins = { "http://localhost:8080"})
+@RestController
+@RequestMapping("/tasks/import")
+public class TaskImportController {
+    @Autowired
+    private TaskImportService taskImportService;
+    @Autowired
+    private TaskImportProperties properties;
+
+    /**
+     * Submits newline delimited json tasks to be imported in the background
+     * @param body one task json object per line
+     * @return 202 with the queued {@link com.work.task.entity.ImportJob} and its location
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(consumes = "application/x-ndjson")
+    public ResponseEntity<ImportJob> importNdjson(InputStream body) throws IOException {
+        return accepted(taskImportService.submit(body, ImportJob.Format.NDJSON));
+    }
+
+    /**
+     * Submits CSV tasks to be imported in the background. The first line is the header
+     * naming the taskName, taskDescription, taskStatus and userName columns.
+     * @param body csv content
+     * @return 202 with the queued {@link com.work.task.entity.ImportJob} and its location
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(consumes = "text/csv")
+    public ResponseEntity<ImportJob> importCsv(InputStream body) throws IOException {
+        return accepted(taskImportService.submit(body, ImportJob.Format.CSV));
+    }
+
+    /**
+     * Progress of an import job: status, rows processed and failed, and throughput
+     * @param id job id returned on submission
+     * @return {@link com.work.task.entity.ImportJob}
+     */
+    @GetMapping("/{id}")
+    public ImportJob getImportJob(@PathVariable String id) {
+        return taskImportService.findJobById(id);
+    }
+
+    @ExceptionHandler(ImportQueueFullException.class)
+    public ResponseEntity<String> importQueueFull(ImportQueueFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(properties.getRetryAfterSeconds()))
+                .body(e.getMessage());
+    }
+
+    private ResponseEntity<ImportJob> accepted(ImportJob job) {
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}").buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+}
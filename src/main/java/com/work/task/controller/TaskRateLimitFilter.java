@@ -0,0 +1,255 @@
+package com.work.task.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.work.task.config.TaskRateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control in front of the /tasks endpoints, enabled with task.rate-limit.enabled.
+ * <p>
+ * Every client has two budgets: one for the
+ * expensive routes (full table reads, streams and exports, bulk writes, searches, stats, sync and
+ * imports) and one for every other request. A budget is a token bucket kept as a generic cell rate
+ * algorithm: a single AtomicLong holding the time at which the bucket is full again, advanced by
+ * compare-and-set, so the hot path takes no lock. Requests over budget get 429 with the time
+ * until the next one is accepted in Retry-After.
+ * <p>
+ * A client is identified by its API key header when the key is one of task.rate-limit.api-keys,
+ * otherwise by its remote address, so that sending a new key with every request does not buy a
+ * new budget.
+ * <p>
+ * Expensive requests are also bounded in number across all clients: above
+ * task.rate-limit.max-concurrent-expensive in flight new ones get 503 at once rather than
+ * queueing for a database connection. A streamed response holds its slot until it is complete.
+ * <p>
+ * Clients are forgotten once their budgets are full again, and the least recently seen ones
+ * beyond task.rate-limit.max-clients.
+ */
+@Component
+@ConditionalOnProperty(name = "task.rate-limit.enabled", havingValue = "true")
+public class TaskRateLimitFilter extends OncePerRequestFilter {
+    private static final String TASKS = "/tasks";
+
+    @Autowired
+    private TaskRateLimitProperties properties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    LongSupplier nanoClock = System::nanoTime;
+    private Cache<String, Client> clients;
+    private final AtomicInteger expensiveInFlight = new AtomicInteger();
+    private long expensiveInterval;
+    private long expensiveTolerance;
+    private long cheapInterval;
+    private long cheapTolerance;
+    private Counter rateLimited;
+    private Counter shed;
+
+    @PostConstruct
+    void start() {
+        expensiveInterval = interval(properties.getExpensive());
+        expensiveTolerance = expensiveInterval * properties.getExpensive().getBurst();
+        cheapInterval = interval(properties.getCheap());
+        cheapTolerance = cheapInterval * properties.getCheap().getBurst();
+        // a budget is full again at the latest its tolerance after the last accepted request
+        clients = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(Duration.ofNanos(Math.max(expensiveTolerance, cheapTolerance)))
+                .ticker(() -> nanoClock.getAsLong())
+                .build();
+        rateLimited = Counter.builder("task.requests.rejected").tag("reason", "rate-limit")
+                .description("Requests rejected by admission control").register(meterRegistry);
+        shed = Counter.builder("task.requests.rejected").tag("reason", "load-shedding")
+                .description("Requests rejected by admission control").register(meterRegistry);
+        Gauge.builder("task.requests.expensive.in-flight", expensiveInFlight, AtomicInteger::get)
+                .description("Expensive requests being processed")
+                .register(meterRegistry);
+        Gauge.builder("task.requests.clients", clients, Cache::estimatedSize)
+                .description("Clients tracked by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !path.equals(TASKS) && !path.startsWith(TASKS + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean expensive = isExpensive(request.getMethod(), path(request));
+        long now = nanoClock.getAsLong();
+        Client client = clients.get(clientKey(request), key -> new Client(now));
+        long wait = expensive ? client.expensive.acquire(now, expensiveInterval, expensiveTolerance)
+                : client.cheap.acquire(now, cheapInterval, cheapTolerance);
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)),
+                    "Rate limit exceeded");
+            return;
+        }
+        if (!expensive) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (expensiveInFlight.incrementAndGet() > properties.getMaxConcurrentExpensive()) {
+            expensiveInFlight.decrementAndGet();
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, properties.getSheddingRetryAfterSeconds(),
+                    "Server busy, retry later");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                expensiveInFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Full table reads, streams and exports, bulk writes, searches, stats, sync and imports
+     */
+    static boolean isExpensive(String method, String path) {
+        if (HttpMethod.GET.matches(method)) {
+            return path.equals(TASKS) || path.equals(TASKS + "/") || path.equals(TASKS + "/stream")
+                    || path.equals(TASKS + "/export") || path.equals(TASKS + "/stats")
+                    || path.equals(TASKS + "/sync") || path.startsWith(TASKS + "/search");
+        }
+        if (HttpMethod.POST.matches(method)) {
+            return path.startsWith(TASKS + "/addTasks") || path.startsWith(TASKS + "/import");
+        }
+        if (HttpMethod.PATCH.matches(method) || HttpMethod.DELETE.matches(method)) {
+            return path.equals(TASKS) || path.equals(TASKS + "/");
+        }
+        return false;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        String key = request.getHeader(properties.getClientHeader());
+        return key != null && properties.getApiKeys().contains(key) ? "key:" + key : "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static long interval(TaskRateLimitProperties.Budget budget) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / budget.getRatePerSecond());
+    }
+
+    private static final class Client {
+        private final Bucket expensive;
+        private final Bucket cheap;
+
+        private Client(long now) {
+            expensive = new Bucket(now);
+            cheap = new Bucket(now);
+        }
+    }
+
+    /**
+     * Releases the expensive slot of an asynchronous request, e.g. a stream or an export, once its
+     * response is complete rather than when the filter chain returns
+     */
+    private final class ReleaseOnCompletion implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                expensiveInFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Token bucket as a generic cell rate algorithm. Each accepted request moves the theoretical
+     * arrival time one interval ahead; a request is accepted while that time stays within the
+     * burst tolerance of now.
+     */
+    private static final class Bucket {
+        private final AtomicLong theoreticalArrival;
+
+        private Bucket(long now) {
+            theoreticalArrival = new AtomicLong(now);
+        }
+
+        /**
+         * @return 0 if the request is accepted, else nanoseconds until it would be
+         */
+        private long acquire(long now, long interval, long tolerance) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = (current - now > 0 ? current : now) + interval;
+                long wait = next - now - tolerance;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
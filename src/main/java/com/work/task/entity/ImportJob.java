@@ -0,0 +1,49 @@
+package com.work.task.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * ImportJob - state of an asynchronous task import. Progress is committed together with
+ * every imported chunk, so linesCommitted is the exact point to resume from after a restart.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "import_jobs", indexes = @Index(name = "idx_import_jobs_status", columnList = "status"))
+public class ImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public enum Format { NDJSON, CSV }
+
+    @Id
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    @Enumerated(EnumType.STRING)
+    private Format format;
+    @JsonIgnore
+    private String spoolFile;
+    private long linesCommitted;
+    private long rowsProcessed;
+    private long rowsFailed;
+    private long elapsedMillis;
+    private String error;
+    private Instant createdAt;
+    private Instant finishedAt;
+
+    /**
+     * @return rows imported per second of processing time
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : rowsProcessed * 1000.0 / elapsedMillis;
+    }
+}
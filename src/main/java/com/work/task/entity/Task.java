@@ -1,25 +1,82 @@
 package com.work.task.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name="tasks")
+@DynamicUpdate
+@Table(name="tasks", indexes = {
+        @Index(name = "idx_tasks_task_status", columnList = "taskStatus"),
+        @Index(name = "idx_tasks_user_name_task_status", columnList = "userName, taskStatus"),
+        @Index(name = "idx_tasks_revision", columnList = "revision, id"),
+        @Index(name = "idx_tasks_task_status_due_at", columnList = "taskStatus, dueAt"),
+        @Index(name = "idx_tasks_priority", columnList = "priority"),
+        @Index(name = "idx_tasks_parent_id", columnList = "parentId")
+})
 public class Task {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private int id;
 
     private String taskName;
     private String taskDescription;
-    private String taskStatus;
+    private TaskStatus taskStatus;
     private String userName;
 
+    /**
+     * Time at which an open task becomes {@link TaskStatus#OVERDUE}, see {@link com.work.task.service.TaskDueScheduler}
+     */
+    @ToString.Exclude
+    private Instant dueAt;
+
+    /**
+     * Higher values are more urgent, null when not prioritised
+     */
+    @ToString.Exclude
+    private Integer priority;
+
+    /**
+     * Id of the task this one is a subtask of, null for a top level task
+     */
+    @ToString.Exclude
+    private Integer parentId;
+
+    /**
+     * Optimistic locking version, exposed to clients as the ETag of the task
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Exclude
+    private long version;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Exclude
+    private Instant createdAt;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Exclude
+    private Instant updatedAt;
 
+    /**
+     * Value of the global task_revision_seq taken by the last write of the task, used by clients
+     * to fetch only what changed since their last sync
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Exclude
+    private long revision;
 }
@@ -0,0 +1,34 @@
+package com.work.task.entity;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * TaskChangeEvent - one committed task mutation of the change feed, numbered by a monotonically
+ * increasing sequence. Created and updated events carry the task as written; a bulk update
+ * carries the filter and the changes applied to every matching task.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskChangeEvent {
+    private long sequence;
+    private Type type;
+    private int taskId;
+    private Task task;
+    private Task filter;
+    private Instant timestamp;
+
+    public TaskChangeEvent(Type type, int taskId, Task task) {
+        this(0, type, taskId, task, null, Instant.now());
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, BULK_UPDATED
+    }
+}
@@ -0,0 +1,21 @@
+package com.work.task.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * TaskChangesResponseEntity - change feed events after the requested sequence and the last
+ * sequence to resume from. reset is set when the requested events are no longer buffered,
+ * the client then reloads the tasks and follows the feed from lastSequence.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskChangesResponseEntity {
+    private long lastSequence;
+    private boolean reset;
+    private List<TaskChangeEvent> events;
+}
@@ -0,0 +1,15 @@
+package com.work.task.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * TaskCountResponseEntity - Count of Tasks affected by a bulk operation
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskCountResponseEntity {
+    private long count;
+}
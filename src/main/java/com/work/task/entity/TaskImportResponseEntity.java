@@ -0,0 +1,41 @@
+package com.work.task.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TaskImportResponseEntity - outcome of a bulk import: rows processed and failed,
+ * throughput and the result of every committed chunk {@link ChunkResult}
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskImportResponseEntity {
+    private long rowsProcessed;
+    private long rowsFailed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private String error;
+    private List<ChunkResult> chunks = new ArrayList<>();
+
+    /**
+     * ChunkResult - one chunk imported in its own transaction, with the range of generated ids
+     * and the rows rejected for a parent task which does not exist, or the error which rolled
+     * the chunk back
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ChunkResult {
+        private int chunk;
+        private int rows;
+        private int rowsFailed;
+        private Integer firstId;
+        private Integer lastId;
+        private String error;
+    }
+}
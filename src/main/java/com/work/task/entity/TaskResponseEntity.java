@@ -9,12 +9,14 @@ import java.util.List;
 
 /**
  * TaskResponseEntity - consist of Count of Tasks - and Task Objects - {@link com.work.task.entity.Task}
+ * nextCursor is the id to pass as {@code after} to fetch the next page, null on the last page
  */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class TaskResponseEntity {
-    private int count;
+    private long count;
     private List<Task> taskList;
+    private Integer nextCursor;
 
 }
@@ -0,0 +1,20 @@
+package com.work.task.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * TaskStatsResponseEntity - consist of total Count of Tasks, Count of Tasks per status label
+ * and Count of Tasks per user name
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskStatsResponseEntity {
+    private long count;
+    private Map<String, Long> statusCount;
+    private Map<String, Long> userCount;
+}
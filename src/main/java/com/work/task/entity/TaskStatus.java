@@ -0,0 +1,110 @@
+package com.work.task.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Closed set of Task statuses. Stored as a small integer {@link #getCode() code}
+ * by {@link com.work.task.entity.TaskStatusConverter} and exchanged in json by its label.
+ * The codes are persisted, so existing ones must never be changed or reused.
+ */
+public enum TaskStatus {
+    TODO(1, "To Do"),
+    IN_PROGRESS(2, "In Progress"),
+    ON_HOLD(3, "On Hold"),
+    DONE(4, "Done"),
+    CANCELLED(5, "Cancelled"),
+    OVERDUE(6, "Overdue");
+
+    private static final Map<String, TaskStatus> LOOKUP = new HashMap<>();
+
+    static {
+        for (TaskStatus status : values()) {
+            LOOKUP.put(normalize(status.name()), status);
+            LOOKUP.put(normalize(status.label), status);
+        }
+        LOOKUP.put("OPEN", TODO);
+        LOOKUP.put("NEW", TODO);
+        LOOKUP.put("COMPLETE", DONE);
+        LOOKUP.put("COMPLETED", DONE);
+        LOOKUP.put("CLOSED", DONE);
+        LOOKUP.put("CANCELED", CANCELLED);
+    }
+
+    private final short code;
+    private final String label;
+
+    TaskStatus(int code, String label) {
+        this.code = (short) code;
+        this.label = label;
+    }
+
+    /**
+     * Statuses a task moves to {@link #OVERDUE} from once its due date has passed
+     */
+    public static final Set<TaskStatus> OPEN_STATUSES = Collections.unmodifiableSet(EnumSet.of(TODO, IN_PROGRESS, ON_HOLD));
+
+    public short getCode() {
+        return code;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    /**
+     * Resolves the status stored with the given code
+     * @param code persisted code
+     * @return matching TaskStatus
+     */
+    public static TaskStatus fromCode(short code) {
+        for (TaskStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown task status code: " + code);
+    }
+
+    /**
+     * Leniently parses a status from its label or name, ignoring case, spaces,
+     * dashes and underscores, e.g. "In Progress", "IN_PROGRESS" or "in-progress"
+     * @param value status text, may be empty
+     * @return matching TaskStatus or null for an empty value
+     */
+    @JsonCreator
+    public static TaskStatus fromValue(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        TaskStatus status = LOOKUP.get(normalize(value));
+        if (status == null) {
+            throw new IllegalArgumentException("Unknown task status: " + value);
+        }
+        return status;
+    }
+
+    private static String normalize(String value) {
+        StringBuilder normalized = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString().toUpperCase(Locale.ROOT);
+    }
+}
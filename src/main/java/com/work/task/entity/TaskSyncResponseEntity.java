@@ -0,0 +1,23 @@
+package com.work.task.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * TaskSyncResponseEntity - tasks written and ids of tasks deleted after the requested revision,
+ * in revision order. revision and afterId are the cursor of the next sync; hasMore is set
+ * when the limit was reached and the client should sync again right away.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskSyncResponseEntity {
+    private long revision;
+    private int afterId;
+    private boolean hasMore;
+    private List<Task> tasks;
+    private List<Integer> deletedIds;
+}
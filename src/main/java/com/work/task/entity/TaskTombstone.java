@@ -0,0 +1,28 @@
+package com.work.task.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * TaskTombstone - id of a deleted task and the revision of its deletion,
+ * kept so syncing clients learn which tasks to drop
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "task_tombstones", indexes = {
+        @Index(name = "idx_task_tombstones_revision", columnList = "revision, taskId")
+})
+public class TaskTombstone {
+
+    @Id
+    private int taskId;
+
+    private long revision;
+    private Instant deletedAt;
+}
@@ -0,0 +1,18 @@
+package com.work.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when the import worker pool and its queue are full and a new job cannot be accepted
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ImportQueueFullException extends RuntimeException {
+    public ImportQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ImportQueueFullException(String message) {
+        this(message, null);
+    }
+}
@@ -0,0 +1,11 @@
+package com.work.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTaskRequestException extends RuntimeException {
+    public InvalidTaskRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.work.task.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a conditional update (If-Match) targets a task which was modified in between
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class TaskVersionMismatchException extends RuntimeException {
+    public TaskVersionMismatchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TaskVersionMismatchException(String message) {
+        this(message, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.work.task.repository;
+
+import com.work.task.entity.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+     List<ImportJob> findByStatusInOrderByCreatedAt(Collection<ImportJob.Status> statuses);
+}
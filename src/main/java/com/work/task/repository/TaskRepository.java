@@ -1,12 +1,139 @@
 package com.work.task.repository;
 
 import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Integer> {
+public interface TaskRepository extends JpaRepository<Task, Integer>, TaskRepositoryCustom {
      List<Task> findByUserName(String userName);
+
+     List<Task> findByTaskStatus(TaskStatus taskStatus);
+
+     Page<Task> findByUserName(String userName, Pageable pageable);
+
+     Page<Task> findByTaskStatus(TaskStatus taskStatus, Pageable pageable);
+
+     Page<Task> findByTaskStatusAndUserName(TaskStatus taskStatus, String userName, Pageable pageable);
+
+     /**
+      * Counts tasks per user and status in a single GROUP BY,
+      * served by the (userName, taskStatus) index
+      * @return one row per user and status pair
+      */
+     @Query("select t.userName as userName, t.taskStatus as taskStatus, count(t) as total " +
+             "from Task t group by t.userName, t.taskStatus")
+     List<TaskCount> countByUserNameAndTaskStatus();
+
+     long countByIdIn(Collection<Integer> ids);
+
+     /**
+      * @param ids ids of tasks which may or may not exist
+      * @return ids of those which exist
+      */
+     @Query("select t.id from Task t where t.id in :ids")
+     List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+     /**
+      * Ids of the direct subtasks of the given tasks which are not among them, served by the parentId index
+      * @param ids ids of the parent tasks
+      * @return ids of their other subtasks
+      */
+     @Query("select t.id from Task t where t.parentId in :ids and t.id not in :ids")
+     List<Integer> findSubtaskIds(@Param("ids") Collection<Integer> ids);
+
+     @Modifying
+     @Query("delete from Task t where t.id = :id")
+     int deleteTaskById(@Param("id") int id);
+
+     @Modifying
+     @Query("delete from Task t where t.id in :ids")
+     int deleteTasksByIds(@Param("ids") Collection<Integer> ids);
+
+     interface TaskCount {
+          String getUserName();
+          TaskStatus getTaskStatus();
+          long getTotal();
+     }
+
+     /**
+      * Keyset page of tasks ordered by id, starting right after the given id
+      * @param id last id seen by the client, 0 for the first page
+      * @param pageable page size, always requested as page 0
+      * @return next tasks with id greater than the given one
+      */
+     List<Task> findByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
+     /**
+      * Keyset page of tasks ordered by revision and id, served by the (revision, id) index
+      * @param revision revision of the last change seen
+      * @param afterId id of the last change seen within that revision
+      * @param upTo highest revision returned
+      * @param pageable page size, always requested as page 0
+      * @return tasks written after the given position
+      */
+     @Query("select t from Task t where (t.revision > :revision " +
+             "or (t.revision = :revision and t.id > :afterId)) and t.revision <= :upTo order by t.revision, t.id")
+     List<Task> findAfterRevision(@Param("revision") long revision, @Param("afterId") int afterId,
+                                  @Param("upTo") long upTo, Pageable pageable);
+
+     /**
+      * Streams tasks ordered by id through a forward-only cursor.
+      * Must be consumed inside a transaction and closed by the caller.
+      * @param after id to start after, 0 for all tasks
+      * @return stream of tasks
+      */
+     @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+     @Query("select t from Task t where t.id > :after order by t.id")
+     Stream<Task> streamByIdGreaterThan(@Param("after") int after);
+
+     /**
+      * Ids of the tasks in one of the given statuses due at or before the given time, oldest due
+      * first, served by the (taskStatus, dueAt) index so tasks which are not open are never read
+      * @param statuses statuses to be matched
+      * @param dueBy latest due date
+      * @param pageable batch size, always requested as page 0
+      * @return ids of the due tasks
+      */
+     @Query("select t.id from Task t where t.taskStatus in :statuses and t.dueAt <= :dueBy order by t.dueAt, t.id")
+     List<Integer> findDueIds(@Param("statuses") Collection<TaskStatus> statuses, @Param("dueBy") Instant dueBy,
+                              Pageable pageable);
+
+     /**
+      * Earliest due date among tasks in one of the given statuses, past ones included,
+      * read from the first entry of each status in the (taskStatus, dueAt) index
+      * @param statuses statuses to be matched
+      * @return next due date, null if no such task has a due date
+      */
+     @Query("select min(t.dueAt) from Task t where t.taskStatus in :statuses")
+     Instant findNextDueAt(@Param("statuses") Collection<TaskStatus> statuses);
+
+     /**
+      * The task and all of its subtasks, at any depth, in one recursive query ordered by depth and id.
+      * Each level is served by the parentId index.
+      * @param id id of the root task
+      * @param maxDepth levels below the root followed at most, guarding against parent cycles
+      * @return the root task first, then its subtasks; empty if the task does not exist
+      */
+     @Query(value = "with recursive subtree(id, depth) as (" +
+             "select id, 0 from tasks where id = :id " +
+             "union all " +
+             "select t.id, s.depth + 1 from tasks t join subtree s on t.parent_id = s.id where s.depth < :maxDepth) " +
+             "select t.* from tasks t join subtree s on t.id = s.id order by s.depth, t.id", nativeQuery = true)
+     List<Task> findSubtree(@Param("id") int id, @Param("maxDepth") int maxDepth);
 }
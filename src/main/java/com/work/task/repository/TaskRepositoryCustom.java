@@ -0,0 +1,86 @@
+package com.work.task.repository;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based updates of {@link com.work.task.entity.Task} issued as a single UPDATE statement,
+ * without loading the entities first. Every update increments the version of the rows it touches
+ * and sets their revision and updatedAt to the ones of the given values.
+ */
+public interface TaskRepositoryCustom {
+
+     /**
+      * Updates only the non-null fields of the given changes
+      * @param id id of the task to be updated
+      * @param changes fields to be set, null ones are left untouched
+      * @param expectedVersion version the row must be at, null to update whatever the version
+      * @return number of updated rows, 0 if the task does not exist or is at another version
+      */
+     int patchTask(int id, Task changes, Long expectedVersion);
+
+     /**
+      * Replaces the name, description, status, user, due date, priority and parent of the task, null values included
+      * @param id id of the task to be updated
+      * @param task new values
+      * @param expectedVersion version the row must be at, null to update whatever the version
+      * @return number of updated rows, 0 if the task does not exist or is at another version
+      */
+     int replaceTask(int id, Task task, Long expectedVersion);
+
+     /**
+      * Sets the non-null status and userName of the given changes on every task matching the filter
+      * @param status status to be matched, ignored when null
+      * @param userName user name to be matched, ignored when null
+      * @param changes status and/or userName to be set
+      * @return number of updated rows
+      */
+     int patchTasks(TaskStatus status, String userName, Task changes);
+
+     /**
+      * Clears the parentId of the given tasks, making them top level tasks
+      * @param ids ids of the tasks to be updated
+      * @param changes revision and updatedAt to be set
+      * @return number of updated rows
+      */
+     int detachFromParent(Collection<Integer> ids, Task changes);
+
+     /**
+      * Takes the next value of the global task_revision_seq sequence. Inside a transaction the
+      * revision counts as in flight until the transaction completes, see {@link #completedRevision()}.
+      * @return new revision, greater than every revision taken before
+      */
+     long nextRevision();
+
+     /**
+      * Highest revision below which no write of this instance is in flight: every revision up to
+      * it is either committed or rolled back
+      * @return one less than the oldest in-flight revision, Long.MAX_VALUE if none is in flight
+      */
+     long completedRevision();
+
+     /**
+      * Keyset page of the ids of tasks matching the filter, in id order
+      * @param status status to be matched, ignored when null
+      * @param userName user name to be matched, ignored when null
+      * @param after id to start after
+      * @param limit maximum number of ids
+      * @return matching ids greater than after
+      */
+     List<Integer> findIds(TaskStatus status, String userName, int after, int limit);
+
+     /**
+      * Sets the status of the given changes on the given tasks still in one of the from statuses
+      * and due at or before dueBy, so a task changed since it was found due is left untouched
+      * @param ids ids of the tasks to be updated
+      * @param from statuses the tasks must still be in
+      * @param dueBy latest due date of the updated tasks
+      * @param changes status to be set
+      * @return number of updated rows
+      */
+     int transitionDue(Collection<Integer> ids, Collection<TaskStatus> from, Instant dueBy, Task changes);
+}
@@ -0,0 +1,180 @@
+package com.work.task.repository;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Criteria API implementation of {@link TaskRepositoryCustom}. The persistence context is
+ * cleared after every update so later reads in the same transaction see the new row values.
+ */
+@Transactional
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    static final String REVISION_SEQUENCE = "task_revision_seq";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private volatile String nextRevisionSql;
+    private final ConcurrentSkipListSet<Long> inFlightRevisions = new ConcurrentSkipListSet<>();
+
+    @Override
+    public int patchTask(int id, Task changes, Long expectedVersion) {
+        return update(id, changes, true, expectedVersion);
+    }
+
+    @Override
+    public int replaceTask(int id, Task task, Long expectedVersion) {
+        return update(id, task, false, expectedVersion);
+    }
+
+    @Override
+    public int patchTasks(TaskStatus status, String userName, Task changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+        if (changes.getTaskStatus() != null) {
+            update.set(task.<TaskStatus>get("taskStatus"), changes.getTaskStatus());
+        }
+        if (changes.getUserName() != null) {
+            update.set(task.<String>get("userName"), changes.getUserName());
+        }
+        stamp(cb, update, task, changes);
+        update.where(filter(cb, task, status, userName).toArray(new Predicate[0]));
+        return execute(update);
+    }
+
+    @Override
+    public int transitionDue(Collection<Integer> ids, Collection<TaskStatus> from, Instant dueBy, Task changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+        update.set(task.<TaskStatus>get("taskStatus"), changes.getTaskStatus());
+        stamp(cb, update, task, changes);
+        update.where(task.get("id").in(ids), task.get("taskStatus").in(from),
+                cb.lessThanOrEqualTo(task.get("dueAt"), dueBy));
+        return execute(update);
+    }
+
+    @Override
+    public int detachFromParent(Collection<Integer> ids, Task changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+        update.set(task.<Integer>get("parentId"), (Integer) null);
+        stamp(cb, update, task, changes);
+        update.where(task.get("id").in(ids));
+        return execute(update);
+    }
+
+    @Override
+    public long nextRevision() {
+        if (nextRevisionSql == null) {
+            nextRevisionSql = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(REVISION_SEQUENCE);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return ((Number) entityManager.createNativeQuery(nextRevisionSql).getSingleResult()).longValue();
+        }
+        long revision;
+        // taken and registered atomically, so completedRevision never passes a revision about to be registered
+        synchronized (inFlightRevisions) {
+            revision = ((Number) entityManager.createNativeQuery(nextRevisionSql).getSingleResult()).longValue();
+            inFlightRevisions.add(revision);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlightRevisions.remove(revision);
+            }
+        });
+        return revision;
+    }
+
+    @Override
+    public long completedRevision() {
+        synchronized (inFlightRevisions) {
+            return inFlightRevisions.isEmpty() ? Long.MAX_VALUE : inFlightRevisions.first() - 1;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> findIds(TaskStatus status, String userName, int after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Integer> query = cb.createQuery(Integer.class);
+        Root<Task> task = query.from(Task.class);
+        List<Predicate> filter = filter(cb, task, status, userName);
+        filter.add(cb.greaterThan(task.get("id"), after));
+        query.select(task.get("id")).where(filter.toArray(new Predicate[0])).orderBy(cb.asc(task.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private static List<Predicate> filter(CriteriaBuilder cb, Root<Task> task, TaskStatus status, String userName) {
+        List<Predicate> filter = new ArrayList<>();
+        if (status != null) {
+            filter.add(cb.equal(task.get("taskStatus"), status));
+        }
+        if (userName != null) {
+            filter.add(cb.equal(task.get("userName"), userName));
+        }
+        return filter;
+    }
+
+    private int update(int id, Task values, boolean skipNulls, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+        set(update, task.get("taskName"), values.getTaskName(), skipNulls);
+        set(update, task.get("taskDescription"), values.getTaskDescription(), skipNulls);
+        set(update, task.get("taskStatus"), values.getTaskStatus(), skipNulls);
+        set(update, task.get("userName"), values.getUserName(), skipNulls);
+        set(update, task.get("dueAt"), values.getDueAt(), skipNulls);
+        set(update, task.get("priority"), values.getPriority(), skipNulls);
+        set(update, task.get("parentId"), values.getParentId(), skipNulls);
+        stamp(cb, update, task, values);
+        Predicate byId = cb.equal(task.get("id"), id);
+        update.where(expectedVersion == null ? byId : cb.and(byId, cb.equal(task.get("version"), expectedVersion)));
+        return execute(update);
+    }
+
+    private static <Y> void set(CriteriaUpdate<Task> update, Path<Y> attribute, Y value, boolean skipNulls) {
+        if (value != null) {
+            update.set(attribute, value);
+        } else if (!skipNulls) {
+            update.set(attribute, (Y) null);
+        }
+    }
+
+    /**
+     * Increments the version and sets the revision and updatedAt of the given values
+     */
+    private static void stamp(CriteriaBuilder cb, CriteriaUpdate<Task> update, Root<Task> task, Task values) {
+        update.set(task.<Long>get("version"), cb.sum(task.<Long>get("version"), 1L));
+        update.set(task.<Long>get("revision"), values.getRevision());
+        update.set(task.<Instant>get("updatedAt"), values.getUpdatedAt());
+    }
+
+    private int execute(CriteriaUpdate<Task> update) {
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+}
@@ -0,0 +1,44 @@
+package com.work.task.repository;
+
+import com.work.task.entity.TaskTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Integer> {
+
+     /**
+      * Records a tombstone for each of the given tasks which exists, in one INSERT ... SELECT.
+      * Must run in the transaction deleting the tasks, before the delete.
+      * @param ids ids of tasks about to be deleted
+      * @param revision revision of the deletion
+      * @param deletedAt time of the deletion
+      * @return number of tombstones, i.e. of existing tasks among the ids
+      */
+     @Modifying
+     @Query("insert into TaskTombstone (taskId, revision, deletedAt) " +
+             "select t.id, :revision, :deletedAt from Task t where t.id in :ids")
+     int insertTombstones(@Param("ids") Collection<Integer> ids, @Param("revision") long revision,
+                          @Param("deletedAt") Instant deletedAt);
+
+     /**
+      * Keyset page of tombstones ordered by revision and task id
+      * @param revision revision of the last change seen
+      * @param afterId id of the last change seen within that revision
+      * @param upTo highest revision returned
+      * @param pageable page size, always requested as page 0
+      * @return tombstones after the given position
+      */
+     @Query("select t from TaskTombstone t where (t.revision > :revision " +
+             "or (t.revision = :revision and t.taskId > :afterId)) and t.revision <= :upTo order by t.revision, t.taskId")
+     List<TaskTombstone> findAfter(@Param("revision") long revision, @Param("afterId") int afterId,
+                                   @Param("upTo") long upTo, Pageable pageable);
+}
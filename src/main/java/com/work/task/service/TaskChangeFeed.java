@@ -0,0 +1,273 @@
+package com.work.task.service;
+
+import com.work.task.config.TaskChangeProperties;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskChangesResponseEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Change feed of committed task mutations. {@link TaskService} publishes a {@link TaskChangeEvent}
+ * for every write; once its transaction commits the event gets the next sequence number and is
+ * stored in a bounded ring buffer, which serves both the catch-up query and the Server-Sent Events
+ * subscribers.
+ * <p>
+ * Writers only append to the buffer. Subscribers are asynchronous requests holding no thread;
+ * a small dispatcher pool sends each of them the events after the last one it received, a batch
+ * at a time, so a subscriber which is merely behind waits its turn rather than holding up the others.
+ * A subscriber which falls further behind than the buffer holds receives a reset event and continues
+ * from the newest event.
+ * <p>
+ * Sends block while the client does not read. A watchdog drops a subscriber whose batch takes longer
+ * than task.changes.send-timeout and adds a dispatcher thread in place of the blocked one until its
+ * send returns, when the subscription is completed and the client reconnects with its Last-Event-ID.
+ */
+@Service
+public class TaskChangeFeed {
+    private final static Logger log = LoggerFactory.getLogger(TaskChangeFeed.class);
+    static final String RESET_EVENT = "reset";
+
+    @Autowired
+    private TaskChangeProperties properties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TaskChangeEvent[] events;
+    private long lastSequence;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+    private final AtomicInteger stalledSends = new AtomicInteger();
+    private ThreadPoolTaskScheduler dispatcher;
+    private ThreadPoolTaskScheduler watchdog;
+    private Counter stalled;
+
+    @PostConstruct
+    void start() {
+        events = new TaskChangeEvent[properties.getCapacity()];
+        dispatcher = new ThreadPoolTaskScheduler();
+        dispatcher.setPoolSize(properties.getDispatchThreads());
+        dispatcher.setThreadNamePrefix("task-changes-");
+        dispatcher.initialize();
+        // runs apart from the dispatcher, which stalled clients may be blocking
+        watchdog = new ThreadPoolTaskScheduler();
+        watchdog.setPoolSize(1);
+        watchdog.setThreadNamePrefix("task-changes-watchdog-");
+        watchdog.initialize();
+        watchdog.scheduleAtFixedRate(this::heartbeat, properties.getHeartbeat());
+        watchdog.scheduleAtFixedRate(this::dropStalled, properties.getSendTimeout());
+        Gauge.builder("task.changes.subscribers", subscribers, Set::size)
+                .description("Open change feed subscriptions")
+                .register(meterRegistry);
+        stalled = Counter.builder("task.changes.stalled")
+                .description("Subscribers dropped for not accepting events within task.changes.send-timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        watchdog.shutdown();
+        dispatcher.shutdown();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Numbers the committed change and appends it to the ring buffer, overwriting the oldest event
+     * @param event change published by {@link TaskService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        synchronized (this) {
+            event.setSequence(++lastSequence);
+            events[(int) (lastSequence % events.length)] = event;
+        }
+        if (!subscribers.isEmpty() && fanOutScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::fanOut);
+        }
+    }
+
+    /**
+     * @return sequence of the newest event, 0 if no task changed since startup
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Events committed after the given sequence, for clients catching up by polling
+     * @param since sequence of the last event the client has seen, 0 for all buffered events
+     * @param limit maximum number of events returned
+     * @return events after since, oldest first, or an empty reset response if they are no longer buffered
+     */
+    public synchronized TaskChangesResponseEntity changesSince(long since, int limit) {
+        List<TaskChangeEvent> after = eventsAfter(since, limit);
+        if (after == null) {
+            return new TaskChangesResponseEntity(lastSequence, true, List.of());
+        }
+        return new TaskChangesResponseEntity(since + after.size(), false, after);
+    }
+
+    /**
+     * Opens a Server-Sent Events subscription. Each event has the sequence as id and the change
+     * type as name, so a reconnecting client resumes with its Last-Event-ID.
+     * @param since sequence to resume after, null to receive only new events
+     * @return emitter the events are sent to
+     */
+    public SseEmitter subscribe(Long since) {
+        return subscribe(new SseEmitter(properties.getTimeout().toMillis()), since);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long since) {
+        Subscriber subscriber = new Subscriber(emitter, since == null ? getLastSequence() : since);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        schedule(subscriber);
+        return emitter;
+    }
+
+    /**
+     * @return null if events after the given sequence are not all buffered anymore, or are
+     * from a previous run
+     */
+    private synchronized List<TaskChangeEvent> eventsAfter(long since, int limit) {
+        if (since < 0 || since > lastSequence || since < lastSequence - events.length) {
+            return null;
+        }
+        int count = (int) Math.min(Math.max(limit, 0), lastSequence - since);
+        List<TaskChangeEvent> after = new ArrayList<>(count);
+        for (long sequence = since + 1; sequence <= since + count; sequence++) {
+            after.add(events[(int) (sequence % events.length)]);
+        }
+        return after;
+    }
+
+    private void fanOut() {
+        fanOutScheduled.set(false);
+        long last = getLastSequence();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.lastSent < last) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Drops the subscribers whose send has blocked for longer than task.changes.send-timeout, and
+     * adds a dispatcher thread for each until its send returns
+     */
+    private void dropStalled() {
+        long now = System.nanoTime();
+        long timeout = properties.getSendTimeout().toNanos();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.state.get() == Subscriber.SENDING && now - subscriber.sendingSince > timeout
+                    && subscriber.state.compareAndSet(Subscriber.SENDING, Subscriber.STALLED)) {
+                subscribers.remove(subscriber);
+                stalled.increment();
+                stalledSends.incrementAndGet();
+                resizeDispatcher();
+                log.debug("Change feed subscriber dropped, not accepting events for {}", properties.getSendTimeout());
+            }
+        }
+    }
+
+    private synchronized void resizeDispatcher() {
+        dispatcher.setPoolSize(properties.getDispatchThreads() + stalledSends.get());
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Sends the subscriber one batch of events, rescheduling it behind the other subscribers
+     * if more are pending
+     */
+    private void drain(Subscriber subscriber) {
+        subscriber.sendingSince = System.nanoTime();
+        subscriber.state.set(Subscriber.SENDING);
+        try {
+            List<TaskChangeEvent> batch = eventsAfter(subscriber.lastSent, properties.getDispatchBatch());
+            if (batch == null) {
+                long last = getLastSequence();
+                subscriber.emitter.send(SseEmitter.event().id(String.valueOf(last)).name(RESET_EVENT).data(last));
+                subscriber.lastSent = last;
+            } else if (batch.isEmpty() && subscriber.heartbeatDue) {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            }
+            for (TaskChangeEvent event : batch == null ? List.<TaskChangeEvent>of() : batch) {
+                if (subscriber.state.get() == Subscriber.STALLED) {
+                    break;
+                }
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getSequence()))
+                        .name(event.getType().name())
+                        .data(event, MediaType.APPLICATION_JSON));
+                subscriber.lastSent = event.getSequence();
+            }
+            subscriber.heartbeatDue = false;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Change feed subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            return;
+        } finally {
+            if (!subscriber.state.compareAndSet(Subscriber.SENDING, Subscriber.IDLE)) {
+                stalledSends.decrementAndGet();
+                resizeDispatcher();
+                subscriber.emitter.complete();
+            }
+        }
+        if (subscriber.state.get() == Subscriber.STALLED) {
+            return;
+        }
+        subscriber.scheduled.set(false);
+        if (subscriber.lastSent < getLastSequence()) {
+            schedule(subscriber);
+        }
+    }
+
+    private static final class Subscriber {
+        private static final int IDLE = 0;
+        private static final int SENDING = 1;
+        private static final int STALLED = 2;
+
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+        private volatile long sendingSince;
+        private volatile long lastSent;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, long lastSent) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.work.task.service;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses CSV lines into {@link com.work.task.entity.Task} objects. The header line names the
+ * columns (taskName, taskDescription, taskStatus, userName, in any order, unknown ones ignored).
+ * Fields may be double quoted with "" as escaped quote; quoted fields cannot span lines.
+ */
+class TaskCsvParser {
+    private static final int TASK_NAME = 0;
+    private static final int TASK_DESCRIPTION = 1;
+    private static final int TASK_STATUS = 2;
+    private static final int USER_NAME = 3;
+
+    private final int[] columns;
+
+    TaskCsvParser(String header) {
+        List<String> names = split(header);
+        columns = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            switch (names.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "taskname":
+                    columns[i] = TASK_NAME;
+                    break;
+                case "taskdescription":
+                    columns[i] = TASK_DESCRIPTION;
+                    break;
+                case "taskstatus":
+                    columns[i] = TASK_STATUS;
+                    break;
+                case "username":
+                    columns[i] = USER_NAME;
+                    break;
+                default:
+                    columns[i] = -1;
+            }
+        }
+    }
+
+    Task parse(String line) {
+        List<String> values = split(line);
+        if (values.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " columns but found " + values.size());
+        }
+        Task task = new Task();
+        for (int i = 0; i < columns.length; i++) {
+            String value = values.get(i);
+            switch (columns[i]) {
+                case TASK_NAME:
+                    task.setTaskName(value);
+                    break;
+                case TASK_DESCRIPTION:
+                    task.setTaskDescription(value);
+                    break;
+                case TASK_STATUS:
+                    task.setTaskStatus(TaskStatus.fromValue(value));
+                    break;
+                case USER_NAME:
+                    task.setUserName(value);
+                    break;
+                default:
+            }
+        }
+        return task;
+    }
+
+    static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        values.add(value.toString());
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+package com.work.task.service;
+
+import com.work.task.config.TaskDueProperties;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskStatus;
+import com.work.task.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Moves open tasks to {@link TaskStatus#OVERDUE} once their due date has passed, without polling
+ * the tasks table.
+ * <p>
+ * The table is the priority queue: the (taskStatus, dueAt) index keeps the open tasks ordered by
+ * due date, and the scheduler only holds the earliest of them, with a single timer set for it.
+ * When the timer fires the due tasks are moved task.due.batch-size at a time, each batch one
+ * UPDATE in its own transaction, and the timer is set for the next due date. Writes giving an
+ * open task an earlier due date bring the timer forward. The timer also fires after
+ * task.due.max-sleep, so a change the scheduler missed is picked up late rather than never.
+ */
+@Service
+@ConditionalOnProperty(name = "task.due.enabled", havingValue = "true", matchIfMissing = true)
+public class TaskDueScheduler {
+    private final static Logger log = LoggerFactory.getLogger(TaskDueScheduler.class);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private TaskRepository taskRepository;
+    @Autowired
+    private TaskDueProperties properties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolTaskScheduler timer;
+    private Counter overdue;
+    private boolean ready;
+    private Instant nextWakeUp;
+    private ScheduledFuture<?> wakeUp;
+
+    @PostConstruct
+    void start() {
+        timer = new ThreadPoolTaskScheduler();
+        timer.setPoolSize(1);
+        timer.setThreadNamePrefix("task-due-");
+        timer.initialize();
+        overdue = Counter.builder("task.due.overdue").description("Tasks moved to Overdue")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        timer.shutdown();
+    }
+
+    /**
+     * Scans for the tasks which fell due while the application was down
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void onReady() {
+        ready = true;
+        wakeUpBy(Instant.now());
+    }
+
+    /**
+     * Brings the timer forward when a committed write makes an open task due earlier than it is set for
+     * @param event change published by {@link TaskService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        Task task = event.getTask();
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                if (task.getDueAt() != null && TaskStatus.OPEN_STATUSES.contains(task.getTaskStatus())) {
+                    wakeUpBy(task.getDueAt());
+                }
+                break;
+            case BULK_UPDATED:
+                // tasks reopened in bulk may be due already
+                if (TaskStatus.OPEN_STATUSES.contains(task.getTaskStatus())) {
+                    wakeUpBy(Instant.now());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return time the timer is set for, null while a scan runs or before the application is ready
+     */
+    public synchronized Instant getNextWakeUp() {
+        return nextWakeUp;
+    }
+
+    /**
+     * Sets the timer for the given time unless it is set to fire earlier already
+     */
+    synchronized void wakeUpBy(Instant time) {
+        if (!ready || (nextWakeUp != null && !time.isBefore(nextWakeUp))) {
+            return;
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        nextWakeUp = time;
+        wakeUp = timer.schedule(this::scan, time);
+    }
+
+    /**
+     * Moves every open task due by now to Overdue, then sets the timer for the next due date
+     */
+    void scan() {
+        synchronized (this) {
+            nextWakeUp = null;
+            wakeUp = null;
+        }
+        Instant now = Instant.now();
+        Instant next;
+        long moved = 0;
+        try {
+            List<Task> batch;
+            do {
+                batch = taskService.markOverdue(now, properties.getBatchSize());
+                moved += batch.size();
+            } while (!batch.isEmpty());
+            // a task found due but changed concurrently may leave due ones behind, they are due now
+            next = taskRepository.findNextDueAt(TaskStatus.OPEN_STATUSES);
+        } catch (RuntimeException e) {
+            log.warn("Due task scan failed, retrying in {}: {}", properties.getRetryDelay(), e.getMessage());
+            next = now.plus(properties.getRetryDelay());
+        }
+        if (moved > 0) {
+            overdue.increment(moved);
+            log.info("Moved {} tasks due by {} to Overdue", moved, now);
+        }
+        Instant latest = now.plus(properties.getMaxSleep());
+        wakeUpBy(next == null || next.isAfter(latest) ? latest : next);
+    }
+}
@@ -0,0 +1,276 @@
+package com.work.task.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.work.task.config.TaskExportProperties;
+import com.work.task.entity.TaskStatus;
+import com.work.task.exception.InvalidTaskRequestException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams tasks out of the tasks table as CSV or NDJSON. Rows are read through a forward-only,
+ * read-only JDBC cursor fetching task.export.fetch-size rows per round trip and written straight
+ * from the result set to a buffered output, without Task entities or a persistence context, so
+ * memory use does not depend on the number of tasks.
+ * <p>
+ * Rows are ordered by id and every row starts with its id: an interrupted download is resumed
+ * by exporting after the id of its last complete row.
+ */
+@Service
+public class TaskExportService {
+    private final static Logger log = LoggerFactory.getLogger(TaskExportService.class);
+    static final String[] COLUMNS = {"id", "taskName", "taskDescription", "taskStatus", "userName",
+            "version", "revision", "createdAt", "updatedAt", "dueAt", "priority", "parentId"};
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * @param value format name, ignoring case
+         * @return matching Format
+         * @throws InvalidTaskRequestException if the format is not supported
+         */
+        public static Format fromValue(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new InvalidTaskRequestException("Unsupported export format: " + value + ", expected csv or ndjson");
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TaskExportProperties properties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer exportTimer;
+    private DistributionSummary exportedRows;
+
+    @PostConstruct
+    void registerMetrics() {
+        exportTimer = Timer.builder("task.export").description("Duration of task exports").register(meterRegistry);
+        exportedRows = DistributionSummary.builder("task.export.rows").description("Tasks written per export")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes the tasks matching the optional filters, ordered by id, and logs the throughput
+     * @param format output format
+     * @param status status of the exported tasks, null for all
+     * @param userName user of the exported tasks, null or empty for all
+     * @param after id to export after, 0 for all tasks
+     * @param out destination, not closed
+     * @return number of exported tasks
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, TaskStatus status, String userName, int after, OutputStream out) {
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        StringBuilder sql = new StringBuilder("select id, task_name, task_description, task_status, user_name,"
+                + " version, revision, created_at, updated_at, due_at, priority, parent_id from tasks where id > ?");
+        List<Object> args = new ArrayList<>(List.of(after));
+        if (status != null) {
+            sql.append(" and task_status = ?");
+            args.add(status.getCode());
+        }
+        if (StringUtils.hasLength(userName)) {
+            sql.append(" and user_name = ?");
+            args.add(userName);
+        }
+        sql.append(" order by id");
+        long rows;
+        try {
+            rows = format == Format.CSV ? exportCsv(sql.toString(), args, counted) : exportNdjson(sql.toString(), args, counted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long nanos = System.nanoTime() - start;
+        exportTimer.record(nanos, TimeUnit.NANOSECONDS);
+        exportedRows.record(rows);
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos));
+        log.info("Exported {} tasks as {} after id {} in {} ms: {} tasks/s, {} KB/s", rows, format, after, millis,
+                rows * 1000 / millis, counted.count * 1000 / 1024 / millis);
+        return rows;
+    }
+
+    private long exportCsv(String sql, List<Object> args, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                (int) properties.getBufferSize().toBytes());
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        long rows = query(sql, args, rs -> {
+            writer.write(Integer.toString(rs.getInt(1)));
+            for (int column = 2; column <= COLUMNS.length; column++) {
+                writer.write(',');
+                writeCsvField(writer, value(rs, column));
+            }
+            writer.write("\r\n");
+        });
+        writer.flush();
+        return rows;
+    }
+
+    private long exportNdjson(String sql, List<Object> args, OutputStream out) throws IOException {
+        JsonFactory factory = objectMapper.getFactory();
+        JsonGenerator generator = factory.createGenerator(new BufferedOutputStream(out,
+                (int) properties.getBufferSize().toBytes()));
+        generator.setRootValueSeparator(new SerializedString("\n"));
+        long rows = query(sql, args, rs -> {
+            generator.writeStartObject();
+            generator.writeNumberField(COLUMNS[0], rs.getInt(1));
+            for (int column = 2; column <= COLUMNS.length; column++) {
+                if (column == 6 || column == 7) {
+                    generator.writeNumberField(COLUMNS[column - 1], rs.getLong(column));
+                } else if (column == 11 || column == 12) {
+                    int number = rs.getInt(column);
+                    if (rs.wasNull()) {
+                        generator.writeNullField(COLUMNS[column - 1]);
+                    } else {
+                        generator.writeNumberField(COLUMNS[column - 1], number);
+                    }
+                } else {
+                    generator.writeStringField(COLUMNS[column - 1], value(rs, column));
+                }
+            }
+            generator.writeEndObject();
+        });
+        if (rows > 0) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+        return rows;
+    }
+
+    private long query(String sql, List<Object> args, RowWriter rowWriter) {
+        long[] rows = new long[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(properties.getFetchSize());
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rs -> {
+            try {
+                rowWriter.write(rs);
+            } catch (IOException e) {
+                throw new ExportAbortedException(e);
+            }
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    /**
+     * Column value as exported: the status label and instants in ISO-8601 UTC
+     */
+    private static String value(ResultSet rs, int column) throws SQLException {
+        switch (column) {
+            case 4:
+                short code = rs.getShort(column);
+                return rs.wasNull() ? null : TaskStatus.fromCode(code).getLabel();
+            case 6:
+            case 7:
+                return Long.toString(rs.getLong(column));
+            case 8:
+            case 9:
+            case 10:
+                OffsetDateTime timestamp = rs.getObject(column, OffsetDateTime.class);
+                return timestamp == null ? null : timestamp.toInstant().toString();
+            default:
+                return rs.getString(column);
+        }
+    }
+
+    /**
+     * Writes a field quoted as per RFC 4180 when it contains a separator, quote or line break
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Carries a write failure, typically a client disconnect, out of the row callback
+     */
+    private static final class ExportAbortedException extends DataAccessException {
+        private ExportAbortedException(IOException cause) {
+            super("Export aborted: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.work.task.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.work.task.config.TaskImportProperties;
+import com.work.task.entity.ImportJob;
+import com.work.task.entity.Task;
+import com.work.task.exception.ImportJobNotFoundException;
+import com.work.task.exception.ImportQueueFullException;
+import com.work.task.repository.ImportJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs task imports as background jobs. A submitted body is spooled to disk and imported by a
+ * bounded worker pool in chunks, each committed together with the job progress, so a job
+ * interrupted by a restart resumes from its last committed line.
+ */
+@Service
+public class TaskImportService {
+    private final static Logger log = LoggerFactory.getLogger(TaskImportService.class);
+
+    @Autowired
+    private TaskService taskService;
+    @Autowired
+    private ImportJobRepository importJobRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TaskImportProperties properties;
+    @Value("${task.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void startWorkers() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("task-import-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        executor.shutdown();
+    }
+
+    /**
+     * Resubmits jobs which were queued or running when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        for (ImportJob job : importJobRepository.findByStatusInOrderByCreatedAt(
+                EnumSet.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING))) {
+            log.info("Resuming import job {} after line {}", job.getId(), job.getLinesCommitted());
+            try {
+                executor.execute(() -> runJob(job.getId()));
+            } catch (TaskRejectedException e) {
+                log.warn("Import job {} not resumed, worker queue is full", job.getId());
+            }
+        }
+    }
+
+    /**
+     * Spools the given body and queues a job importing it
+     * @param body NDJSON or CSV content
+     * @param format format of the body
+     * @return queued job
+     * @throws IOException if the body cannot be spooled
+     * @throws ImportQueueFullException if all workers are busy and the queue is full
+     */
+    public ImportJob submit(InputStream body, ImportJob.Format format) throws IOException {
+        if (executor.getThreadPoolExecutor().getQueue().remainingCapacity() == 0) {
+            throw new ImportQueueFullException("Import queue is full, retry later");
+        }
+        String id = UUID.randomUUID().toString();
+        Files.createDirectories(properties.getSpoolDir());
+        Path spoolFile = properties.getSpoolDir().resolve(id + "." + format.name().toLowerCase());
+        Files.copy(body, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+
+        ImportJob job = new ImportJob();
+        job.setId(id);
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setFormat(format);
+        job.setSpoolFile(spoolFile.toString());
+        job.setCreatedAt(Instant.now());
+        job = importJobRepository.save(job);
+        try {
+            executor.execute(() -> runJob(id));
+        } catch (TaskRejectedException e) {
+            importJobRepository.delete(job);
+            Files.deleteIfExists(spoolFile);
+            throw new ImportQueueFullException("Import queue is full, retry later", e);
+        }
+        return job;
+    }
+
+    /**
+     * Finds import job by id
+     * @param id job id
+     * @return ImportJob with its current progress
+     */
+    public ImportJob findJobById(String id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job does not exist with id: " + id));
+    }
+
+    void runJob(String id) {
+        ImportJob job = findJobById(id);
+        job.setStatus(ImportJob.Status.RUNNING);
+        job = importJobRepository.save(job);
+        long start = System.currentTimeMillis() - job.getElapsedMillis();
+        Path spoolFile = Path.of(job.getSpoolFile());
+        try (BufferedReader reader = Files.newBufferedReader(spoolFile, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            TaskCsvParser csvParser = null;
+            if (job.getFormat() == ImportJob.Format.CSV) {
+                String header = reader.readLine();
+                lineNumber++;
+                csvParser = new TaskCsvParser(header == null ? "" : header);
+            }
+            for (; lineNumber < job.getLinesCommitted(); lineNumber++) {
+                reader.readLine();
+            }
+            List<Task> chunk = new ArrayList<>(chunkSize);
+            long parseFailures = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(csvParser != null ? csvParser.parse(line) : objectMapper.readValue(line, Task.class));
+                } catch (IOException | IllegalArgumentException e) {
+                    log.debug("Import job {} skipped line {}: {}", id, lineNumber, e.getMessage());
+                    parseFailures++;
+                }
+                if (chunk.size() == chunkSize) {
+                    job = commitChunk(job, chunk, parseFailures, lineNumber, start);
+                    chunk.clear();
+                    parseFailures = 0;
+                }
+            }
+            job = commitChunk(job, chunk, parseFailures, lineNumber, start);
+            job.setStatus(ImportJob.Status.COMPLETED);
+        } catch (IOException | UncheckedIOException | DataAccessException e) {
+            log.warn("Import job {} failed: {}", id, e.getMessage());
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setError(e.getMessage());
+        }
+        job.setFinishedAt(Instant.now());
+        importJobRepository.save(job);
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Could not delete spool file {}", spoolFile);
+        }
+    }
+
+    /**
+     * Inserts the chunk and records the job progress in the same transaction. Rows left out for
+     * a parent task which does not exist are counted as failed, and so are all rows of a chunk
+     * which is rolled back, whose progress is then recorded alone.
+     */
+    private ImportJob commitChunk(ImportJob job, List<Task> chunk, long parseFailures, long lineNumber, long start) {
+        ImportJob progress = copyOf(job);
+        progress.setLinesCommitted(lineNumber);
+        progress.setRowsFailed(job.getRowsFailed() + parseFailures);
+        try {
+            return transactionTemplate.execute(status -> {
+                int inserted = chunk.isEmpty() ? 0 : taskService.insertChunk(chunk).size();
+                progress.setRowsProcessed(job.getRowsProcessed() + inserted);
+                progress.setRowsFailed(progress.getRowsFailed() + chunk.size() - inserted);
+                progress.setElapsedMillis(System.currentTimeMillis() - start);
+                return importJobRepository.save(progress);
+            });
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            log.warn("Import job {} chunk ending at line {} rolled back: {}", job.getId(), lineNumber, e.getMessage());
+            progress.setRowsProcessed(job.getRowsProcessed());
+            progress.setRowsFailed(job.getRowsFailed() + parseFailures + chunk.size());
+            progress.setElapsedMillis(System.currentTimeMillis() - start);
+            return importJobRepository.save(progress);
+        }
+    }
+
+    private static ImportJob copyOf(ImportJob job) {
+        return new ImportJob(job.getId(), job.getStatus(), job.getFormat(), job.getSpoolFile(),
+                job.getLinesCommitted(), job.getRowsProcessed(), job.getRowsFailed(), job.getElapsedMillis(),
+                job.getError(), job.getCreatedAt(), job.getFinishedAt());
+    }
+}
@@ -0,0 +1,606 @@
+package com.work.task.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskStatus;
+import com.work.task.repository.TaskRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory copy of the tasks table serving the by-user and by-status lookups of
+ * {@link TaskService}. Tasks are held as compact records in primitive int keyed hash maps split
+ * into lock stripes by id; each stripe also indexes its own tasks by user and by status, so a write
+ * locks a single stripe and readers of the other stripes never wait for it. Readers do not lock a
+ * stripe either unless a write to it overlaps their optimistic read.
+ * <p>
+ * Enabled with task.memory-index.enabled. The index is loaded by streaming the tasks table once the
+ * application is ready, follows the committed change events afterwards, and lookups go to the
+ * database until it is loaded.
+ * <p>
+ * Events of concurrent transactions may arrive in a different order than they committed, so a task
+ * is never replaced by an older version, and a deleted task leaves a tombstone for
+ * task.memory-index.tombstone-ttl which keeps a late event from bringing it back.
+ */
+@Component
+public class TaskMemoryIndex {
+    private final static Logger log = LoggerFactory.getLogger(TaskMemoryIndex.class);
+    private static final int MILLION = 1_000_000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${task.memory-index.enabled:false}")
+    private boolean enabled;
+    @Value("${task.memory-index.stripes:64}")
+    private int stripeCount;
+    @Value("${task.memory-index.tombstone-ttl:10m}")
+    private Duration tombstoneTtl;
+
+    private Stripe[] stripes;
+    private Cache<Integer, Boolean> tombstones;
+    private final Map<String, String> userNames = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private final AtomicBoolean warming = new AtomicBoolean();
+    private final Set<Integer> deletedWhileWarming = ConcurrentHashMap.newKeySet();
+    private volatile boolean bulkUpdatedWhileWarming;
+
+    @PostConstruct
+    void createStripes() {
+        stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        tombstones = Caffeine.newBuilder().expireAfterWrite(tombstoneTtl).build();
+        if (enabled) {
+            Gauge.builder("task.memory.index.tasks", this, TaskMemoryIndex::size)
+                    .description("Tasks held by the in-memory index")
+                    .register(meterRegistry);
+            Gauge.builder("task.memory.index.bytes", this, TaskMemoryIndex::estimatedBytes)
+                    .description("Estimated heap used by the in-memory index")
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return true once the index is loaded and lookups can be served from it
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads every task by streaming the tasks table. Changes committed meanwhile are applied as
+     * they come; a task is only replaced by a streamed row of the same or a newer version, and a bulk
+     * update during the load triggers a second pass.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warm() {
+        if (!enabled || !warming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            do {
+                bulkUpdatedWhileWarming = false;
+                try (Stream<Task> tasks = taskRepository.streamByIdGreaterThan(0)) {
+                    tasks.forEach(task -> {
+                        if (!deletedWhileWarming.contains(task.getId())) {
+                            put(task);
+                        }
+                        entityManager.detach(task);
+                    });
+                }
+            } while (bulkUpdatedWhileWarming);
+            ready = true;
+            long size = size();
+            long bytes = estimatedBytes();
+            log.info("Memory index loaded {} tasks in {} ms, ~{} MB, ~{} MB per million tasks",
+                    size, System.currentTimeMillis() - start, bytes >> 20, size == 0 ? 0 : (bytes * MILLION / size) >> 20);
+        } finally {
+            deletedWhileWarming.clear();
+            warming.set(false);
+        }
+    }
+
+    /**
+     * Applies a committed change to the index
+     * @param event change published by {@link TaskService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.getType()) {
+            case CREATED:
+            case UPDATED:
+                put(event.getTask());
+                break;
+            case DELETED:
+                if (warming.get()) {
+                    deletedWhileWarming.add(event.getTaskId());
+                }
+                remove(event.getTaskId());
+                break;
+            case BULK_UPDATED:
+                if (warming.get()) {
+                    bulkUpdatedWhileWarming = true;
+                }
+                bulkUpdate(event.getFilter(), event.getTask());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @param userName user of the tasks
+     * @return tasks of the user ordered by id
+     */
+    public List<Task> findByUserName(String userName) {
+        return find(stripe -> stripe.byUser.get(userName));
+    }
+
+    /**
+     * @param status status of the tasks, null for tasks without status
+     * @return tasks with the status ordered by id
+     */
+    public List<Task> findByTaskStatus(TaskStatus status) {
+        return find(stripe -> stripe.byStatus[statusSlot(status)]);
+    }
+
+    /**
+     * @return number of indexed tasks
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += read(stripe, s -> s.tasks.size);
+        }
+        return size;
+    }
+
+    /**
+     * Estimated heap of the records, their strings and the hash tables, assuming compressed oops
+     * @return estimated size in bytes
+     */
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += read(stripe, s -> {
+                long stripeBytes = s.tasks.estimatedBytes();
+                for (IntSet ids : s.byUser.values()) {
+                    stripeBytes += ids.estimatedBytes();
+                }
+                for (IntSet ids : s.byStatus) {
+                    stripeBytes += ids.estimatedBytes();
+                }
+                for (TaskRecord record : s.tasks.values) {
+                    if (record != null) {
+                        stripeBytes += TaskRecord.SHALLOW_BYTES + stringBytes(record.taskName) + stringBytes(record.taskDescription);
+                    }
+                }
+                return stripeBytes;
+            });
+        }
+        for (String userName : userNames.keySet()) {
+            bytes += stringBytes(userName);
+        }
+        return bytes;
+    }
+
+    private List<Task> find(Function<Stripe, IntSet> index) {
+        List<Task> found = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            List<TaskRecord> records = read(stripe, s -> {
+                List<TaskRecord> matching = new ArrayList<>();
+                IntSet ids = index.apply(s);
+                if (ids != null) {
+                    ids.forEach(id -> matching.add(s.tasks.get(id)));
+                }
+                return matching;
+            });
+            // records are immutable, so they are copied to tasks outside the lock
+            for (TaskRecord record : records) {
+                found.add(record.toTask());
+            }
+        }
+        found.sort(Comparator.comparingInt(Task::getId));
+        return found;
+    }
+
+    /**
+     * Reads the stripe without locking it, and again under its read lock if a write overlapped.
+     * The optimistic attempt may see the stripe half updated, so whatever it fails with or returns
+     * is discarded unless the stamp still validates afterwards.
+     */
+    private static <T> T read(Stripe stripe, Function<Stripe, T> reader) {
+        long stamp = stripe.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = reader.apply(stripe);
+                if (stripe.lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                // inconsistent view of a stripe being written, read it again under the lock
+            }
+        }
+        stamp = stripe.lock.readLock();
+        try {
+            return reader.apply(stripe);
+        } finally {
+            stripe.lock.unlockRead(stamp);
+        }
+    }
+
+    private void put(Task task) {
+        Stripe stripe = stripe(task.getId());
+        long stamp = stripe.lock.writeLock();
+        try {
+            TaskRecord current = stripe.tasks.get(task.getId());
+            if ((current != null && current.version > task.getVersion())
+                    || tombstones.getIfPresent(task.getId()) != null) {
+                return;
+            }
+            TaskRecord record = new TaskRecord(task, canonical(task.getUserName()),
+                    current != null && task.getCreatedAt() == null ? current.createdAtMicros : micros(task.getCreatedAt()));
+            stripe.replace(current, record);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    private void remove(int id) {
+        Stripe stripe = stripe(id);
+        long stamp = stripe.lock.writeLock();
+        try {
+            tombstones.put(id, Boolean.TRUE);
+            TaskRecord current = stripe.tasks.remove(id);
+            if (current != null) {
+                stripe.unindex(current);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    private void bulkUpdate(Task filter, Task changes) {
+        String userName = canonical(changes.getUserName());
+        for (Stripe stripe : stripes) {
+            long stamp = stripe.lock.writeLock();
+            try {
+                IntSet candidates = filter.getUserName() != null ? stripe.byUser.get(filter.getUserName())
+                        : stripe.byStatus[statusSlot(filter.getTaskStatus())];
+                if (candidates == null) {
+                    continue;
+                }
+                List<TaskRecord> matching = new ArrayList<>();
+                candidates.forEach(id -> {
+                    TaskRecord record = stripe.tasks.get(id);
+                    if (filter.getTaskStatus() == null || record.taskStatus == filter.getTaskStatus()) {
+                        matching.add(record);
+                    }
+                });
+                for (TaskRecord record : matching) {
+                    stripe.replace(record, record.with(changes.getTaskStatus(), userName,
+                            changes.getRevision(), micros(changes.getUpdatedAt())));
+                }
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private Stripe stripe(int id) {
+        return stripes[(mix(id) >>> 16) & (stripes.length - 1)];
+    }
+
+    private String canonical(String userName) {
+        return userName == null ? null : userNames.computeIfAbsent(userName, name -> name);
+    }
+
+    private static int statusSlot(TaskStatus status) {
+        return status == null ? 0 : status.ordinal() + 1;
+    }
+
+    private static int mix(int id) {
+        return id * 0x9E3779B9;
+    }
+
+    private static long micros(Instant instant) {
+        return instant == null ? Long.MIN_VALUE : ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant instant(long micros) {
+        return micros == Long.MIN_VALUE ? null : Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + align(16 + value.length());
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * Tasks of one stripe with the by-user and by-status indexes of these tasks
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final IntObjectMap tasks = new IntObjectMap();
+        private final Map<String, IntSet> byUser = new HashMap<>();
+        private final IntSet[] byStatus = new IntSet[TaskStatus.values().length + 1];
+
+        private Stripe() {
+            for (int i = 0; i < byStatus.length; i++) {
+                byStatus[i] = new IntSet();
+            }
+        }
+
+        private void replace(TaskRecord current, TaskRecord record) {
+            if (current != null) {
+                unindex(current);
+            }
+            tasks.put(record.id, record);
+            if (record.userName != null) {
+                byUser.computeIfAbsent(record.userName, user -> new IntSet()).add(record.id);
+            }
+            byStatus[statusSlot(record.taskStatus)].add(record.id);
+        }
+
+        private void unindex(TaskRecord record) {
+            if (record.userName != null) {
+                IntSet ids = byUser.get(record.userName);
+                ids.remove(record.id);
+                if (ids.size == 0) {
+                    byUser.remove(record.userName);
+                }
+            }
+            byStatus[statusSlot(record.taskStatus)].remove(record.id);
+        }
+    }
+
+    /**
+     * Immutable copy of a task: instants as epoch microseconds and the user name shared between tasks
+     */
+    private static final class TaskRecord {
+        /** header, id, five references, status reference and five longs, aligned */
+        private static final long SHALLOW_BYTES = 80;
+
+        private final int id;
+        private final String taskName;
+        private final String taskDescription;
+        private final TaskStatus taskStatus;
+        private final String userName;
+        private final long version;
+        private final long revision;
+        private final long createdAtMicros;
+        private final long updatedAtMicros;
+        private final long dueAtMicros;
+        private final Integer priority;
+        private final Integer parentId;
+
+        private TaskRecord(Task task, String userName, long createdAtMicros) {
+            this(task.getId(), task.getTaskName(), task.getTaskDescription(), task.getTaskStatus(), userName,
+                    task.getVersion(), task.getRevision(), createdAtMicros, micros(task.getUpdatedAt()),
+                    micros(task.getDueAt()), task.getPriority(), task.getParentId());
+        }
+
+        private TaskRecord(int id, String taskName, String taskDescription, TaskStatus taskStatus, String userName,
+                           long version, long revision, long createdAtMicros, long updatedAtMicros,
+                           long dueAtMicros, Integer priority, Integer parentId) {
+            this.id = id;
+            this.taskName = taskName;
+            this.taskDescription = taskDescription;
+            this.taskStatus = taskStatus;
+            this.userName = userName;
+            this.version = version;
+            this.revision = revision;
+            this.createdAtMicros = createdAtMicros;
+            this.updatedAtMicros = updatedAtMicros;
+            this.dueAtMicros = dueAtMicros;
+            this.priority = priority;
+            this.parentId = parentId;
+        }
+
+        private TaskRecord with(TaskStatus newStatus, String newUserName, long newRevision, long newUpdatedAtMicros) {
+            return new TaskRecord(id, taskName, taskDescription, newStatus != null ? newStatus : taskStatus,
+                    newUserName != null ? newUserName : userName, version + 1, newRevision, createdAtMicros, newUpdatedAtMicros,
+                    dueAtMicros, priority, parentId);
+        }
+
+        private Task toTask() {
+            Task task = new Task();
+            task.setId(id);
+            task.setTaskName(taskName);
+            task.setTaskDescription(taskDescription);
+            task.setTaskStatus(taskStatus);
+            task.setUserName(userName);
+            task.setVersion(version);
+            task.setRevision(revision);
+            task.setCreatedAt(instant(createdAtMicros));
+            task.setUpdatedAt(instant(updatedAtMicros));
+            task.setDueAt(instant(dueAtMicros));
+            task.setPriority(priority);
+            task.setParentId(parentId);
+            return task;
+        }
+    }
+
+    /**
+     * Open addressing int to record map with linear probing; 0 marks a free slot as task ids start at 1
+     */
+    private static final class IntObjectMap {
+        private int[] keys = new int[16];
+        private TaskRecord[] values = new TaskRecord[16];
+        private int size;
+
+        private TaskRecord get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = mix(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return null;
+        }
+
+        private void put(int key, TaskRecord value) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                size++;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private TaskRecord remove(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != key) {
+                if (keys[slot] == 0) {
+                    return null;
+                }
+                slot = (slot + 1) & mask;
+            }
+            TaskRecord removed = values[slot];
+            size--;
+            // shift back the following entries of the probe sequence into the freed slot
+            for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = mix(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    slot = next;
+                }
+            }
+            keys[slot] = 0;
+            values[slot] = null;
+            return removed;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            TaskRecord[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new TaskRecord[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    put(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private long estimatedBytes() {
+            return align(16 + 4L * keys.length) + align(16 + 4L * values.length);
+        }
+    }
+
+    /**
+     * Open addressing set of task ids with linear probing; 0 marks a free slot
+     */
+    private static final class IntSet {
+        private int[] keys = new int[4];
+        private int size;
+
+        private void add(int key) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                int[] old = keys;
+                keys = new int[old.length * 2];
+                size = 0;
+                for (int k : old) {
+                    if (k != 0) {
+                        add(k);
+                    }
+                }
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == 0) {
+                keys[slot] = key;
+                size++;
+            }
+        }
+
+        private void remove(int key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != key) {
+                if (keys[slot] == 0) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            size--;
+            for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+                int home = mix(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    keys[slot] = keys[next];
+                    slot = next;
+                }
+            }
+            keys[slot] = 0;
+        }
+
+        private void forEach(IntConsumer action) {
+            for (int key : keys) {
+                if (key != 0) {
+                    action.accept(key);
+                }
+            }
+        }
+
+        private long estimatedBytes() {
+            return 24 + align(16 + 4L * keys.length);
+        }
+    }
+}
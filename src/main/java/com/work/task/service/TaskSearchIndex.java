@@ -0,0 +1,302 @@
+package com.work.task.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.exception.InvalidTaskRequestException;
+import com.work.task.repository.TaskRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over taskName and taskDescription. It follows the change events
+ * {@link TaskService} publishes on every write, applied once their transaction has committed,
+ * and is rebuilt from the tasks table at startup. Hits are ranked by BM25 with taskName weighted higher.
+ * <p>
+ * Changes are searchable right away but only durable once committed: an on-disk index commits them
+ * every task.search.commit-interval and on shutdown, so a crash loses at most one interval of them.
+ * <p>
+ * Events of concurrent transactions may arrive in a different order than they committed, so the
+ * versions written and the tasks deleted in the last task.search.tombstone-ttl are remembered, and
+ * a task is never replaced by an older version nor brought back once deleted.
+ */
+@Component
+public class TaskSearchIndex {
+    private final static Logger log = LoggerFactory.getLogger(TaskSearchIndex.class);
+    static final String ID = "id";
+    static final String TASK_NAME = "taskName";
+    static final String TASK_DESCRIPTION = "taskDescription";
+    private static final Map<String, Float> BOOSTS = Map.of(TASK_NAME, 2f, TASK_DESCRIPTION, 1f);
+    private static final long DELETED = Long.MAX_VALUE;
+
+    @Autowired
+    private TaskRepository taskRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Value("${task.search.index-dir:}")
+    private String indexDir;
+    @Value("${task.search.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+    @Value("${task.search.commit-interval:1m}")
+    private Duration commitInterval;
+    @Value("${task.search.tombstone-ttl:10m}")
+    private Duration tombstoneTtl;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ThreadPoolTaskScheduler committer;
+    /** version last indexed by task id, {@link #DELETED} once deleted */
+    private Cache<Integer, Long> recentVersions;
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = StringUtils.hasText(indexDir) ? FSDirectory.open(Path.of(indexDir)) : new ByteBuffersDirectory();
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(writer, null);
+        recentVersions = Caffeine.newBuilder().expireAfterWrite(tombstoneTtl).build();
+        if (StringUtils.hasText(indexDir)) {
+            committer = new ThreadPoolTaskScheduler();
+            committer.setPoolSize(1);
+            committer.setThreadNamePrefix("task-search-commit-");
+            // an interrupted commit closes the channel holding the index write lock, so let it finish
+            committer.setWaitForTasksToCompleteOnShutdown(true);
+            committer.setAwaitTerminationSeconds(30);
+            committer.initialize();
+            committer.scheduleWithFixedDelay(this::commit, Instant.now().plus(commitInterval), commitInterval);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (committer != null) {
+            committer.shutdown();
+        }
+        searcherManager.close();
+        writer.commit();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Rebuilds the index at startup. An in-memory index is always rebuilt, an on-disk one
+     * only when task.search.rebuild-on-startup is set.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup || !StringUtils.hasText(indexDir)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the index content with every task of the tasks table, streamed by id
+     * @return number of indexed tasks
+     */
+    @Transactional(readOnly = true)
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        AtomicLong indexed = new AtomicLong();
+        try {
+            writer.deleteAll();
+            try (Stream<Task> tasks = taskRepository.streamByIdGreaterThan(0)) {
+                tasks.forEach(task -> {
+                    // a task written meanwhile may already be indexed by onTaskChange, at a newer version
+                    recentVersions.asMap().compute(task.getId(), (taskId, recent) -> {
+                        if (recent == null || recent <= task.getVersion()) {
+                            update(task);
+                        }
+                        return recent;
+                    });
+                    indexed.incrementAndGet();
+                    entityManager.detach(task);
+                });
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Search index rebuilt with {} tasks in {} ms", indexed.get(), System.currentTimeMillis() - start);
+        return indexed.get();
+    }
+
+    /**
+     * Applies a committed change: created and updated tasks are added or replaced and deleted
+     * ones removed. Bulk updates only change status and user, which are not indexed.
+     * @param event change published by {@link TaskService}
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChange(TaskChangeEvent event) {
+        try {
+            switch (event.getType()) {
+                case CREATED:
+                case UPDATED:
+                    Task task = event.getTask();
+                    recentVersions.asMap().compute(task.getId(), (taskId, recent) -> {
+                        if (recent != null && recent > task.getVersion()) {
+                            return recent;
+                        }
+                        update(task);
+                        return task.getVersion();
+                    });
+                    break;
+                case DELETED:
+                    recentVersions.asMap().compute(event.getTaskId(), (taskId, recent) -> {
+                        try {
+                            writer.deleteDocuments(new Term(ID, String.valueOf(taskId)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return DELETED;
+                    });
+                    break;
+                default:
+                    break;
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Search index update failed, it is repaired by the next rebuild: {}", e.getMessage());
+        }
+    }
+
+    private void update(Task task) {
+        try {
+            writer.updateDocument(new Term(ID, String.valueOf(task.getId())), document(task));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Makes the changes applied since the last commit durable
+     */
+    void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.warn("Search index commit failed, retrying in {}: {}", commitInterval, e.getMessage());
+        }
+    }
+
+    /**
+     * Searches taskName and taskDescription. The query supports the classic Lucene syntax,
+     * e.g. aws certification, "exact phrase", cert*, taskName:aws; all terms must match by default
+     * and a query which does not parse is searched as plain words.
+     * @param q query text
+     * @param pageable page and size of the result, sort is ignored as hits are ranked by relevance
+     * @return page of matching task ids, best match first, with the total number of hits
+     * @throws InvalidTaskRequestException if the query is blank
+     */
+    public Page<Integer> search(String q, Pageable pageable) {
+        if (!StringUtils.hasText(q)) {
+            throw new InvalidTaskRequestException("A search query is required");
+        }
+        Query query = parse(q);
+        int offset = (int) Math.min(pageable.getOffset(), Integer.MAX_VALUE - pageable.getPageSize());
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                // there are never more hits than documents, so the page number cannot size the hit queue
+                int maxDoc = searcher.getIndexReader().maxDoc();
+                if (offset >= maxDoc) {
+                    return new PageImpl<>(List.of(), pageable, searcher.count(query));
+                }
+                TopScoreDocCollector collector = TopScoreDocCollector.create(
+                        Math.min(offset + pageable.getPageSize(), maxDoc), Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs(offset, pageable.getPageSize());
+                List<Integer> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    ids.add(searcher.storedFields().document(scoreDoc.doc).getField(ID).numericValue().intValue());
+                }
+                return new PageImpl<>(ids, pageable, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query parse(String q) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(new String[]{TASK_NAME, TASK_DESCRIPTION}, analyzer, BOOSTS);
+        parser.setDefaultOperator(QueryParser.Operator.AND);
+        try {
+            return parser.parse(q);
+        } catch (ParseException e) {
+            try {
+                return parser.parse(QueryParser.escape(q));
+            } catch (ParseException escaped) {
+                throw new InvalidTaskRequestException("Invalid search query: " + q);
+            }
+        }
+    }
+
+    private static Document document(Task task) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(task.getId()), Field.Store.NO));
+        document.add(new StoredField(ID, task.getId()));
+        if (task.getTaskName() != null) {
+            document.add(new TextField(TASK_NAME, task.getTaskName(), Field.Store.NO));
+        }
+        if (task.getTaskDescription() != null) {
+            document.add(new TextField(TASK_DESCRIPTION, task.getTaskDescription(), Field.Store.NO));
+        }
+        return document;
+    }
+}
@@ -1,49 +1,305 @@
 package com.work.task.service;
 
+import com.work.task.config.TaskWriteBatchProperties;
 import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskImportResponseEntity;
+import com.work.task.entity.TaskStatsResponseEntity;
+import com.work.task.entity.TaskStatus;
+import com.work.task.entity.TaskSyncResponseEntity;
+import com.work.task.entity.TaskTombstone;
+import com.work.task.exception.InvalidTaskRequestException;
 import com.work.task.exception.TaskNotFoundException;
+import com.work.task.exception.TaskVersionMismatchException;
 import com.work.task.repository.TaskRepository;
+import com.work.task.repository.TaskTombstoneRepository;
+import io.micrometer.core.annotation.Counted;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class TaskService {
     private final static  Logger log = LoggerFactory.getLogger(TaskService.class);
+    static final String UNASSIGNED = "Unassigned";
+    public static final String TASKS_CACHE = "tasks";
+    public static final String TASKS_BY_USER_CACHE = "tasksByUser";
+    static final String OPERATIONS_METRIC = "task.service.operations";
+    static final int MAX_SUBTASK_DEPTH = 100;
     @Autowired
     private TaskRepository taskRepository;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+    @Autowired
+    private TaskSearchIndex taskSearchIndex;
+    @Autowired
+    private TaskMemoryIndex taskMemoryIndex;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private TaskWriteBatchProperties writeBatchProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CacheManager cacheManager;
+    @Value("${task.bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    private TaskWriteBatcher writeBatcher;
+
+    @PostConstruct
+    void startWriteBatcher() {
+        if (writeBatchProperties.isEnabled()) {
+            writeBatcher = new TaskWriteBatcher(writeBatchProperties, meterRegistry,
+                    tasks -> transactionTemplate.execute(tx -> writeTasks(tasks)),
+                    task -> transactionTemplate.execute(tx -> writeTasks(List.of(task)).get(0)));
+            writeBatcher.start();
+        }
+    }
+
+    @PreDestroy
+    void stopWriteBatcher() throws InterruptedException {
+        if (writeBatcher != null) {
+            writeBatcher.stop();
+        }
+    }
 
     /**
-     * Saves given Task object
+     * Saves given Task object. With task.write-batch.enabled, calls made outside a transaction
+     * are combined with concurrent ones into batched transactions; the call still returns once
+     * its task is committed.
      * @param task Task object
      * @return Task which is saved
      */
+    @Caching(put = @CachePut(cacheNames = TASKS_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true))
+    @Counted(OPERATIONS_METRIC)
     public Task saveTask (Task task){
-        log.info("Task object-{}",task.toString());
-        return taskRepository.save(task);
+        log.debug("Task object-{}", task);
+        checkParents(List.of(task));
+        if (writeBatcher != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writeBatcher.save(task);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return writeTasks(List.of(task)).get(0);
+        }
+        return transactionTemplate.execute(tx -> writeTasks(List.of(task)).get(0));
     }
 
     /**
-     * Saves list of Tasks
+     * Saves the tasks with one revision in the current transaction
+     */
+    private List<Task> writeTasks(List<Task> tasks) {
+        long revision = taskRepository.nextRevision();
+        List<Task> saved = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            stamp(task, revision);
+            Task result = taskRepository.save(task);
+            publishSaved(result);
+            saved.add(result);
+        }
+        return saved;
+    }
+
+    /**
+     * Saves list of Tasks in one transaction. Inserts are sent in JDBC batches and
+     * the persistence context is flushed and cleared every chunk so it does not grow
+     * with the size of the list.
      * @param tasks List of Task Objects
      * @return list of Tasks updated
      */
+    @Transactional
+    @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    @Counted(OPERATIONS_METRIC)
     public List<Task> saveTasks (List<Task> tasks){
-        return taskRepository.saveAll(tasks);
+        checkParents(tasks);
+        List<Task> saved = new ArrayList<>(tasks.size());
+        long revision = taskRepository.nextRevision();
+        for (Task task : tasks) {
+            stamp(task, revision);
+            saved.add(taskRepository.save(task));
+            if (saved.size() % bulkChunkSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        saved.forEach(this::publishSaved);
+        return saved;
     }
 
     /**
-     * Retrieves all tasks
+     * Imports Tasks read one by one from the given iterator, committing every chunk of
+     * task.bulk.chunk-size rows in its own batched transaction. A failing chunk is rolled
+     * back and reported without stopping the import; a read error stops it.
+     * Ids present in the input are ignored, every row is inserted as a new Task.
+     * @param tasks Tasks to be imported, typically parsed lazily from the request body
+     * @return per chunk results, rows processed and failed, and throughput
+     */
+    @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    @Counted(OPERATIONS_METRIC)
+    public TaskImportResponseEntity importTasks(Iterator<Task> tasks) {
+        long start = System.nanoTime();
+        TaskImportResponseEntity result = new TaskImportResponseEntity();
+        List<Task> chunk = new ArrayList<>(bulkChunkSize);
+        try {
+            while (tasks.hasNext()) {
+                chunk.add(tasks.next());
+                if (chunk.size() == bulkChunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Task import stopped after {} rows: {}", result.getRowsProcessed() + chunk.size(), e.getMessage());
+            result.setError(e.getMessage());
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        result.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        result.setRowsPerSecond(elapsedNanos == 0 ? 0 : result.getRowsProcessed() * 1e9 / elapsedNanos);
+        return result;
+    }
+
+    /**
+     * Inserts the chunk of tasks in the current transaction with batched inserts
+     * and clears the persistence context afterwards. Tasks whose parent does not exist
+     * are left out, with one query for the parents of the whole chunk.
+     * @param chunk tasks to be inserted
+     * @return inserted tasks with their generated ids
+     */
+    @Transactional
+    @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    @Counted(OPERATIONS_METRIC)
+    public List<Task> insertChunk(List<Task> chunk) {
+        Set<Integer> parentIds = new HashSet<>();
+        for (Task task : chunk) {
+            if(task.getParentId() != null){
+                parentIds.add(task.getParentId());
+            }
+        }
+        List<Task> valid = chunk;
+        if(!parentIds.isEmpty()){
+            Set<Integer> existing = new HashSet<>(taskRepository.findExistingIds(parentIds));
+            valid = chunk.stream()
+                    .filter(task -> task.getParentId() == null || existing.contains(task.getParentId()))
+                    .toList();
+        }
+        long revision = taskRepository.nextRevision();
+        for (Task task : valid) {
+            task.setId(0);
+            stamp(task, revision);
+            entityManager.persist(task);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        for (Task task : valid) {
+            publish(TaskChangeEvent.Type.CREATED, task);
+        }
+        return valid;
+    }
+
+    private void importChunk(List<Task> chunk, TaskImportResponseEntity result) {
+        TaskImportResponseEntity.ChunkResult chunkResult = new TaskImportResponseEntity.ChunkResult();
+        chunkResult.setChunk(result.getChunks().size());
+        chunkResult.setRows(chunk.size());
+        try {
+            List<Task> inserted = transactionTemplate.execute(status -> insertChunk(chunk));
+            if(!inserted.isEmpty()){
+                chunkResult.setFirstId(inserted.get(0).getId());
+                chunkResult.setLastId(inserted.get(inserted.size() - 1).getId());
+            }
+            chunkResult.setRowsFailed(chunk.size() - inserted.size());
+            result.setRowsProcessed(result.getRowsProcessed() + inserted.size());
+            result.setRowsFailed(result.getRowsFailed() + chunkResult.getRowsFailed());
+        } catch (DataAccessException | PersistenceException | TransactionException e) {
+            log.warn("Task import chunk {} of {} rows rolled back: {}", chunkResult.getChunk(), chunk.size(), e.getMessage());
+            chunkResult.setError(e.getMessage());
+            result.setRowsFailed(result.getRowsFailed() + chunk.size());
+        }
+        result.getChunks().add(chunkResult);
+    }
+
+    /**
+     * Retrieves one keyset page of tasks ordered by id
+     * @param after id of the last task of the previous page, 0 for the first page
+     * @param limit maximum number of tasks in the page
      * @return List of Tasks
      */
-    public List<Task> getAllTasks() {
-        return taskRepository.findAll();
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public List<Task> getAllTasks(int after, int limit) {
+        return taskRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Counts all tasks with a count query
+     * @return number of tasks
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public long countTasks() {
+        return taskRepository.count();
+    }
+
+    /**
+     * Streams tasks ordered by id to the given consumer, one row at a time.
+     * Every task is detached once consumed so the persistence context stays flat.
+     * @param after id to start after, 0 for all tasks
+     * @param consumer receives each task
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public void streamTasks(int after, Consumer<Task> consumer) {
+        try (Stream<Task> tasks = taskRepository.streamByIdGreaterThan(after)) {
+            tasks.forEach(task -> {
+                consumer.accept(task);
+                entityManager.detach(task);
+            });
+        }
     }
 
     /**
@@ -51,6 +307,9 @@ public class TaskService {
      * @param id - id of task
      * @return Task
      */
+    @Cacheable(TASKS_CACHE)
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
     public Task findTaskById(int id) {
         return taskRepository.findById(id)
                 .orElseThrow(() -> new TaskNotFoundException("Task does not exist with id: " + id));
@@ -58,78 +317,478 @@ public class TaskService {
     }
 
     /**
-     * Deletes particular task on the basis of id
+     * Deletes particular task on the basis of id with a single DELETE statement,
+     * leaving a tombstone for syncing clients. Its subtasks become top level tasks.
      * @param id id of task to be deleted
      * @return Message if id is removed
+     * @throws TaskNotFoundException if no task has this id
      */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = TASKS_CACHE),
+            @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    })
+    @Counted(OPERATIONS_METRIC)
     public String deleteTaskById(int id) {
-        taskRepository.deleteById(id);
+        long revision = taskRepository.nextRevision();
+        if(taskTombstoneRepository.insertTombstones(List.of(id), revision, Instant.now()) == 0){
+            throw new TaskNotFoundException("Task does not exist with id: " + id);
+        }
+        detachSubtasks(List.of(id), revision);
+        taskRepository.deleteTaskById(id);
+        eventPublisher.publishEvent(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, id, null));
         return id + " id -> task removed.";
     }
 
+    /**
+     * Deletes the given tasks, or all tasks matching the status and/or user filter, with set-based
+     * DELETE statements of task.bulk.chunk-size ids each committed in its own transaction.
+     * Subtasks of deleted tasks which are not deleted themselves become top level tasks.
+     * @param ids ids of tasks to be deleted, unknown ones are ignored
+     * @param status status of tasks to be deleted when no ids are given
+     * @param userName user of tasks to be deleted when no ids are given
+     * @return number of deleted tasks
+     * @throws InvalidTaskRequestException if neither ids nor a filter, or both, are given
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = TASKS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    })
+    @Counted(OPERATIONS_METRIC)
+    public long deleteTasks(List<Integer> ids, TaskStatus status, String userName) {
+        boolean byIds = ids != null && !ids.isEmpty();
+        boolean byFilter = status != null || StringUtils.hasLength(userName);
+        if(byIds == byFilter){
+            throw new InvalidTaskRequestException("Either ids or a status/user filter is required to delete tasks");
+        }
+        long deleted = 0;
+        if(byIds){
+            for (int start = 0; start < ids.size(); start += bulkChunkSize) {
+                List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + bulkChunkSize));
+                deleted += transactionTemplate.execute(tx -> deleteChunk(chunk));
+            }
+            return deleted;
+        }
+        String user = StringUtils.hasLength(userName) ? userName : null;
+        int after = 0;
+        List<Integer> chunk;
+        do {
+            int from = after;
+            chunk = taskRepository.findIds(status, user, from, bulkChunkSize);
+            if(!chunk.isEmpty()){
+                List<Integer> toDelete = chunk;
+                deleted += transactionTemplate.execute(tx -> deleteChunk(toDelete));
+                after = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == bulkChunkSize);
+        return deleted;
+    }
+
+    private int deleteChunk(List<Integer> requested) {
+        // unknown ids get no tombstone and no DELETED event
+        List<Integer> ids = taskRepository.findExistingIds(requested);
+        if(ids.isEmpty()){
+            return 0;
+        }
+        long revision = taskRepository.nextRevision();
+        taskTombstoneRepository.insertTombstones(ids, revision, Instant.now());
+        detachSubtasks(ids, revision);
+        int deleted = taskRepository.deleteTasksByIds(ids);
+        for (Integer id : ids) {
+            eventPublisher.publishEvent(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, id, null));
+        }
+        return deleted;
+    }
+
+    /**
+     * Clears the parentId of the subtasks of the given tasks which are about to be deleted,
+     * with one UPDATE statement, and publishes the updated subtasks
+     */
+    private void detachSubtasks(List<Integer> ids, long revision) {
+        List<Integer> subtaskIds = taskRepository.findSubtaskIds(ids);
+        if(subtaskIds.isEmpty()){
+            return;
+        }
+        Task changes = new Task();
+        stamp(changes, revision);
+        taskRepository.detachFromParent(subtaskIds, changes);
+        Cache tasksCache = cacheManager.getCache(TASKS_CACHE);
+        for (Task subtask : taskRepository.findAllById(subtaskIds)) {
+            if(tasksCache != null){
+                tasksCache.evict(subtask.getId());
+            }
+            publish(TaskChangeEvent.Type.UPDATED, subtask);
+        }
+    }
+
     /**
      * Update existing task if not found add a new one.
+     * The update is a single UPDATE statement, after which the task is read back so the result,
+     * also put in the cache, carries the columns the request does not, such as createdAt.
      * @param id of Task to be updated
      * @param task Task object to be updated
+     * @param expectedVersion version the client last saw (If-Match), null for an unconditional update
      * @return task Updated Task object
+     * @throws TaskVersionMismatchException if the task is not at the expected version
      */
-    public Task updateTask(int id, Task task) {
-
-        Optional<Task> updateTask = taskRepository.findById(id);
-        Task taskSaved = null;
-        if(updateTask.isPresent()){
-            updateTask.get().setUserName(task.getUserName());
-            updateTask.get().setTaskName(task.getTaskName());
-            updateTask.get().setTaskDescription(task.getTaskDescription());
-            updateTask.get().setTaskStatus(task.getTaskStatus());
-            taskSaved = taskRepository.save(updateTask.get());
-        }else{
-            taskSaved = taskRepository.save(task);
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = TASKS_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true))
+    @Counted(OPERATIONS_METRIC)
+    public Task updateTask(int id, Task task, Long expectedVersion) {
+        checkParent(id, task.getParentId());
+        stamp(task, taskRepository.nextRevision());
+        if(taskRepository.replaceTask(id, task, expectedVersion) == 0){
+            if(expectedVersion != null){
+                throw versionMismatch(id, expectedVersion);
+            }
+            Task saved = taskRepository.save(task);
+            publishSaved(saved);
+            return saved;
         }
-        return taskSaved;
+        Task updated = findUpdatedTask(id);
+        publish(TaskChangeEvent.Type.UPDATED, updated);
+        return updated;
     }
 
     /**
-     * Update Task with patch API
+     * Update Task with patch API. Only the supplied, non-empty fields are written,
+     * in a single UPDATE statement, and the task is then read back.
      * @param id id of task to be patched
      * @param task task object to be patched
+     * @param expectedVersion version the client last saw (If-Match), null for an unconditional update
      * @return Task Object if not found then returns {@link com.work.task.exception.TaskNotFoundException }
+     * @throws TaskVersionMismatchException if the task is not at the expected version
      */
-    public Task patchTask(int id, Task task) {
-        Task updateTask = taskRepository.findById(id)
-                .orElseThrow(() -> new TaskNotFoundException("Task does not exist with id: " + id));
-
+    @Transactional
+    @Caching(put = @CachePut(cacheNames = TASKS_CACHE, key = "#result.id"),
+            evict = @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true))
+    @Counted(OPERATIONS_METRIC)
+    public Task patchTask(int id, Task task, Long expectedVersion) {
+        Task changes = new Task();
         if(StringUtils.hasLength(task.getUserName())){
-            updateTask.setUserName(task.getUserName());
+            changes.setUserName(task.getUserName());
         }
         if(StringUtils.hasLength(task.getTaskName())) {
-            updateTask.setTaskName(task.getTaskName());
+            changes.setTaskName(task.getTaskName());
         }
         if(StringUtils.hasLength(task.getTaskDescription())) {
-            updateTask.setTaskDescription(task.getTaskDescription());
+            changes.setTaskDescription(task.getTaskDescription());
         }
-        if(StringUtils.hasLength(task.getTaskStatus())) {
-            updateTask.setTaskStatus(task.getTaskStatus());
+        if(task.getTaskStatus() != null) {
+            changes.setTaskStatus(task.getTaskStatus());
         }
-        return taskRepository.save(updateTask);
+        changes.setDueAt(task.getDueAt());
+        changes.setPriority(task.getPriority());
+        changes.setParentId(task.getParentId());
+        if(changes.getUserName() == null && changes.getTaskName() == null
+                && changes.getTaskDescription() == null && changes.getTaskStatus() == null
+                && changes.getDueAt() == null && changes.getPriority() == null && changes.getParentId() == null){
+            Task current = findUpdatedTask(id);
+            if(expectedVersion != null && current.getVersion() != expectedVersion){
+                throw versionMismatch(id, expectedVersion);
+            }
+            return current;
+        }
+        checkParent(id, changes.getParentId());
+        stamp(changes, taskRepository.nextRevision());
+        if(taskRepository.patchTask(id, changes, expectedVersion) == 0){
+            if(expectedVersion != null && taskRepository.existsById(id)){
+                throw versionMismatch(id, expectedVersion);
+            }
+            throw new TaskNotFoundException("Task does not exist with id: " + id);
+        }
+        Task patched = findUpdatedTask(id);
+        publish(TaskChangeEvent.Type.UPDATED, patched);
+        return patched;
+    }
+
+    /**
+     * Sets status and/or userName on every task matching the filter with one set-based UPDATE
+     * @param status status of the tasks to be updated, optional
+     * @param userName user of the tasks to be updated, optional
+     * @param task new taskStatus and/or userName; other fields cannot be bulk updated
+     * @return number of updated tasks
+     * @throws InvalidTaskRequestException if no filter or no supported change is given
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = TASKS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true)
+    })
+    @Counted(OPERATIONS_METRIC)
+    public int patchTasks(TaskStatus status, String userName, Task task) {
+        if(status == null && !StringUtils.hasLength(userName)){
+            throw new InvalidTaskRequestException("A status or user filter is required to update tasks in bulk");
+        }
+        if(StringUtils.hasLength(task.getTaskName()) || StringUtils.hasLength(task.getTaskDescription())){
+            throw new InvalidTaskRequestException("Only taskStatus and userName can be updated in bulk");
+        }
+        Task changes = new Task();
+        changes.setTaskStatus(task.getTaskStatus());
+        changes.setUserName(StringUtils.hasLength(task.getUserName()) ? task.getUserName() : null);
+        if(changes.getTaskStatus() == null && changes.getUserName() == null){
+            throw new InvalidTaskRequestException("A taskStatus or userName to be set is required");
+        }
+        String user = StringUtils.hasLength(userName) ? userName : null;
+        stamp(changes, taskRepository.nextRevision());
+        int updated = taskRepository.patchTasks(status, user, changes);
+        if(updated > 0){
+            Task filter = new Task();
+            filter.setTaskStatus(status);
+            filter.setUserName(user);
+            TaskChangeEvent event = new TaskChangeEvent(TaskChangeEvent.Type.BULK_UPDATED, 0, changes);
+            event.setFilter(filter);
+            eventPublisher.publishEvent(event);
+        }
+        return updated;
     }
 
     /**
-     * Search Tasks on the basis of Status
+     * Tasks written and tasks deleted after the given position, merged in (revision, id) order.
+     * Revisions are taken when a write starts, so the result stops below the oldest revision still
+     * being written: a client never skips past a transaction committing after later ones. It runs on
+     * the primary, as a replica may apply such transactions out of revision order.
+     * @param sinceRevision revision of the last change the client has, 0 for a full sync
+     * @param afterId id of the last change the client has within that revision, 0 if none
+     * @param limit maximum number of changes returned
+     * @return changed tasks, deleted ids and the cursor of the next sync
+     */
+    @Transactional
+    @Counted(OPERATIONS_METRIC)
+    public TaskSyncResponseEntity syncTasks(long sinceRevision, int afterId, int limit) {
+        Pageable page = PageRequest.of(0, limit + 1);
+        long upTo = taskRepository.completedRevision();
+        List<Task> tasks = taskRepository.findAfterRevision(sinceRevision, afterId, upTo, page);
+        List<TaskTombstone> tombstones = taskTombstoneRepository.findAfter(sinceRevision, afterId, upTo, page);
+        TaskSyncResponseEntity result = new TaskSyncResponseEntity(sinceRevision, afterId, false,
+                new ArrayList<>(), new ArrayList<>());
+        int t = 0;
+        int d = 0;
+        while (t + d < limit && (t < tasks.size() || d < tombstones.size())) {
+            boolean takeTask = d == tombstones.size() || (t < tasks.size()
+                    && (tasks.get(t).getRevision() < tombstones.get(d).getRevision()
+                    || (tasks.get(t).getRevision() == tombstones.get(d).getRevision()
+                    && tasks.get(t).getId() <= tombstones.get(d).getTaskId())));
+            if(takeTask){
+                Task task = tasks.get(t++);
+                result.getTasks().add(task);
+                result.setRevision(task.getRevision());
+                result.setAfterId(task.getId());
+            }else{
+                TaskTombstone tombstone = tombstones.get(d++);
+                result.getDeletedIds().add(tombstone.getTaskId());
+                result.setRevision(tombstone.getRevision());
+                result.setAfterId(tombstone.getTaskId());
+            }
+        }
+        result.setHasMore(t < tasks.size() || d < tombstones.size());
+        return result;
+    }
+
+    /**
+     * The task and all of its subtasks at any depth, fetched with one recursive query
+     * @param id id of the root task
+     * @return the task first, then its subtasks ordered by depth and id; each one's parentId links it to the tree
+     * @throws TaskNotFoundException if no task has this id
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public List<Task> getSubtaskTree(int id) {
+        List<Task> tree = taskRepository.findSubtree(id, MAX_SUBTASK_DEPTH);
+        if(tree.isEmpty()){
+            throw new TaskNotFoundException("Task does not exist with id: " + id);
+        }
+        return tree;
+    }
+
+    /**
+     * Moves up to limit open tasks due by the given time to {@link TaskStatus#OVERDUE} with a single
+     * UPDATE statement. A task changed since it was found due is left as it is.
+     * @param dueBy latest due date of the moved tasks, typically now
+     * @param limit maximum number of tasks moved
+     * @return tasks moved to Overdue, empty once no more are due or if all those found were changed concurrently
+     */
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = TASKS_CACHE, allEntries = true, condition = "!#result.isEmpty()"),
+            @CacheEvict(cacheNames = TASKS_BY_USER_CACHE, allEntries = true, condition = "!#result.isEmpty()")
+    })
+    @Counted(OPERATIONS_METRIC)
+    public List<Task> markOverdue(Instant dueBy, int limit) {
+        List<Integer> ids = taskRepository.findDueIds(TaskStatus.OPEN_STATUSES, dueBy, PageRequest.of(0, limit));
+        if(ids.isEmpty()){
+            return List.of();
+        }
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.OVERDUE);
+        stamp(changes, taskRepository.nextRevision());
+        if(taskRepository.transitionDue(ids, TaskStatus.OPEN_STATUSES, dueBy, changes) == 0){
+            return List.of();
+        }
+        List<Task> overdue = new ArrayList<>(ids.size());
+        for (Task task : taskRepository.findAllById(ids)) {
+            if(task.getRevision() == changes.getRevision()){
+                overdue.add(task);
+                publish(TaskChangeEvent.Type.UPDATED, task);
+            }
+        }
+        return overdue;
+    }
+
+    /**
+     * Checks that the parents of the given tasks exist, and for existing tasks that the parent is not one of their subtasks
+     * @throws InvalidTaskRequestException otherwise
+     */
+    private void checkParents(List<Task> tasks) {
+        Set<Integer> parentIds = new HashSet<>();
+        for (Task task : tasks) {
+            if(task.getParentId() == null){
+                continue;
+            }
+            if(task.getId() != 0){
+                checkParent(task.getId(), task.getParentId());
+            }else{
+                parentIds.add(task.getParentId());
+            }
+        }
+        if(!parentIds.isEmpty() && taskRepository.countByIdIn(parentIds) < parentIds.size()){
+            throw new InvalidTaskRequestException("Parent task does not exist with one of the ids: " + parentIds);
+        }
+    }
+
+    private void checkParent(int id, Integer parentId) {
+        if(parentId == null){
+            return;
+        }
+        if(parentId == id){
+            throw new InvalidTaskRequestException("Task " + id + " cannot be its own parent");
+        }
+        if(!taskRepository.existsById(parentId)){
+            throw new InvalidTaskRequestException("Parent task does not exist with id: " + parentId);
+        }
+        for (Task subtask : taskRepository.findSubtree(id, MAX_SUBTASK_DEPTH)) {
+            if(subtask.getId() == parentId){
+                throw new InvalidTaskRequestException("Task " + parentId + " is a subtask of task " + id + " and cannot be its parent");
+            }
+        }
+    }
+
+    private static void stamp(Task task, long revision) {
+        task.setRevision(revision);
+        task.setUpdatedAt(Instant.now());
+    }
+
+    private void publishSaved(Task task) {
+        publish(task.getVersion() == 0 ? TaskChangeEvent.Type.CREATED : TaskChangeEvent.Type.UPDATED, task);
+    }
+
+    private void publish(TaskChangeEvent.Type type, Task task) {
+        eventPublisher.publishEvent(new TaskChangeEvent(type, task.getId(), task));
+    }
+
+    private Task findUpdatedTask(int id) {
+        return taskRepository.findById(id)
+                .orElseThrow(() -> new TaskNotFoundException("Task does not exist with id: " + id));
+    }
+
+    private static TaskVersionMismatchException versionMismatch(int id, long expectedVersion) {
+        return new TaskVersionMismatchException("Task " + id + " is not at version " + expectedVersion);
+    }
+
+    /**
+     * Search Tasks on the basis of Status, served by the in-memory index when it is enabled and loaded
      * @param status Task status to be searched
      * @return List of Tasks matching the status
      */
-    public List<Task> searchByTaskStatus(String status) {
-        return taskRepository.findAll().stream().filter(i -> i.getTaskStatus().equals(status)).
-                collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public List<Task> searchByTaskStatus(TaskStatus status) {
+        if(taskMemoryIndex.isReady()){
+            return taskMemoryIndex.findByTaskStatus(status);
+        }
+        return taskRepository.findByTaskStatus(status);
+    }
+
+    /**
+     * Search Tasks by status and/or userName, each criteria being optional.
+     * Every combination is served by an index on the tasks table.
+     * @param status Task status to be matched, ignored when null
+     * @param userName user to be matched, ignored when empty
+     * @param pageable page, size and sort of the result
+     * @return Page of Tasks matching the given criteria
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public Page<Task> searchTasks(TaskStatus status, String userName, Pageable pageable) {
+        boolean byStatus = status != null;
+        boolean byUser = StringUtils.hasLength(userName);
+        if(byStatus && byUser){
+            return taskRepository.findByTaskStatusAndUserName(status, userName, pageable);
+        }else if(byStatus){
+            return taskRepository.findByTaskStatus(status, pageable);
+        }else if(byUser){
+            return taskRepository.findByUserName(userName, pageable);
+        }
+        return taskRepository.findAll(pageable);
     }
 
     /**
-     * Search User's task on the basis of UserName
+     * Counts Tasks per status and per user from a single grouped query
+     * @return total count, count per status label and count per user name
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public TaskStatsResponseEntity getTaskStats() {
+        long count = 0;
+        Map<String, Long> statusCount = new TreeMap<>();
+        Map<String, Long> userCount = new TreeMap<>();
+        for (TaskRepository.TaskCount taskCount : taskRepository.countByUserNameAndTaskStatus()) {
+            count += taskCount.getTotal();
+            String status = taskCount.getTaskStatus() == null ? UNASSIGNED : taskCount.getTaskStatus().getLabel();
+            String userName = taskCount.getUserName() == null ? UNASSIGNED : taskCount.getUserName();
+            statusCount.merge(status, taskCount.getTotal(), Long::sum);
+            userCount.merge(userName, taskCount.getTotal(), Long::sum);
+        }
+        return new TaskStatsResponseEntity(count, statusCount, userCount);
+    }
+
+    /**
+     * Full-text search over taskName and taskDescription, ranked by relevance
+     * @param q query text, see {@link TaskSearchIndex#search(String, Pageable)}
+     * @param pageable page and size of the result
+     * @return Page of matching Tasks, best match first
+     */
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
+    public Page<Task> searchByText(String q, Pageable pageable) {
+        Page<Integer> hits = taskSearchIndex.search(q, pageable);
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (Task task : taskRepository.findAllById(hits.getContent())) {
+            tasks.put(task.getId(), task);
+        }
+        List<Task> ranked = new ArrayList<>(tasks.size());
+        for (Integer id : hits) {
+            Task task = tasks.get(id);
+            if(task != null){
+                ranked.add(task);
+            }
+        }
+        return new PageImpl<>(ranked, pageable, hits.getTotalElements());
+    }
+
+    /**
+     * Search User's task on the basis of UserName, served by the in-memory index when it is enabled and loaded
      * @param userName of the user
      * @return List of tasks associated with the userName
      */
+    @Cacheable(TASKS_BY_USER_CACHE)
+    @Transactional(readOnly = true)
+    @Counted(OPERATIONS_METRIC)
     public List<Task> searchByUserName(String userName) {
+        if(taskMemoryIndex.isReady()){
+            return taskMemoryIndex.findByUserName(userName);
+        }
         return taskRepository.findByUserName(userName);
     }
 }
@@ -0,0 +1,200 @@
+package com.work.task.service;
+
+import com.work.task.config.TaskWriteBatchProperties;
+import com.work.task.entity.Task;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Combines concurrent single task writes. Callers queue their task and wait for its future while
+ * flusher threads take up to max-batch-size queued writes, waiting at most max-delay for a batch to
+ * fill, and write them in one transaction. If the batch fails every write is retried on its own so
+ * only the failing caller sees the error.
+ */
+class TaskWriteBatcher {
+    private final static Logger log = LoggerFactory.getLogger(TaskWriteBatcher.class);
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Function<List<Task>, List<Task>> batchWriter;
+    private final Function<Task, Task> singleWriter;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingWrite> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchFill;
+    private final Timer flushTimer;
+    private final Counter fallbacks;
+
+    /**
+     * @param batchWriter writes the tasks in one transaction and returns them saved, in order
+     * @param singleWriter writes one task in its own transaction
+     */
+    TaskWriteBatcher(TaskWriteBatchProperties properties, MeterRegistry meterRegistry,
+                     Function<List<Task>, List<Task>> batchWriter, Function<Task, Task> singleWriter) {
+        this.batchWriter = batchWriter;
+        this.singleWriter = singleWriter;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxDelayNanos = properties.getMaxDelay().toNanos();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        for (int i = 0; i < properties.getFlushThreads(); i++) {
+            Thread flusher = new Thread(this::run, "task-write-batch-" + i);
+            flusher.setDaemon(true);
+            flushers.add(flusher);
+        }
+        batchSize = DistributionSummary.builder("task.write.batch.size")
+                .description("Writes per batched transaction")
+                .register(meterRegistry);
+        batchFill = DistributionSummary.builder("task.write.batch.fill")
+                .description("Batch size relative to task.write-batch.max-batch-size")
+                .baseUnit("ratio")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("task.write.batch.flush")
+                .description("Time to write one batch")
+                .register(meterRegistry);
+        fallbacks = Counter.builder("task.write.batch.fallbacks")
+                .description("Batches retried write by write after failing")
+                .register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        flushers.forEach(Thread::start);
+    }
+
+    /**
+     * Stops accepting writes and waits for the queued ones to be flushed
+     */
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        PendingWrite write;
+        while ((write = queue.poll()) != null) {
+            try {
+                write.future.complete(singleWriter.apply(write.task));
+            } catch (RuntimeException e) {
+                write.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Queues the task and waits until its batch is written. When the queue is full the task is
+     * written right away in the caller's thread.
+     * @param task task to be saved
+     * @return saved task with its generated id
+     */
+    Task save(Task task) {
+        PendingWrite write = new PendingWrite(task);
+        if (!running || !queue.offer(write)) {
+            return singleWriter.apply(task);
+        }
+        // stop() may have drained the queue before the offer; whoever removes the write owns it
+        if (!running && queue.remove(write)) {
+            return singleWriter.apply(task);
+        }
+        try {
+            return write.future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    PendingWrite next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) {
+        long start = System.nanoTime();
+        List<Task> tasks = new ArrayList<>(batch.size());
+        batch.forEach(write -> tasks.add(write.task));
+        try {
+            List<Task> saved = batchWriter.apply(tasks);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(saved.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} task writes rolled back, retrying them one by one: {}", batch.size(), e.getMessage());
+            fallbacks.increment();
+            for (PendingWrite write : batch) {
+                write.reset();
+                try {
+                    write.future.complete(singleWriter.apply(write.task));
+                } catch (RuntimeException single) {
+                    write.future.completeExceptionally(single);
+                }
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSize.record(batch.size());
+        batchFill.record((double) batch.size() / maxBatchSize);
+    }
+
+    /**
+     * Queued task and the future of its caller. The id and version given by the caller are kept
+     * so a rolled back batch, which may have assigned an id, can be retried from the original state.
+     */
+    private static final class PendingWrite {
+        private final Task task;
+        private final int id;
+        private final long version;
+        private final CompletableFuture<Task> future = new CompletableFuture<>();
+
+        private PendingWrite(Task task) {
+            this.task = task;
+            this.id = task.getId();
+            this.version = task.getVersion();
+        }
+
+        private void reset() {
+            task.setId(id);
+            task.setVersion(version);
+        }
+    }
+}
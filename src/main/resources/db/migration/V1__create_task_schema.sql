@@ -0,0 +1,45 @@
+-- Schema of the postgres profile, validated against the entities by Hibernate (ddl-auto=validate).
+-- Embedded H2 databases get the same objects from Hibernate and schema.sql instead.
+
+create sequence tasks_seq start with 1 increment by 50;
+create sequence task_revision_seq start with 1 increment by 1;
+
+create table tasks (
+    id integer not null primary key,
+    task_name varchar(255),
+    task_description varchar(255),
+    task_status smallint,
+    user_name varchar(255),
+    version bigint not null,
+    created_at timestamp(6) with time zone,
+    updated_at timestamp(6) with time zone,
+    revision bigint not null
+);
+
+create index idx_tasks_task_status on tasks (task_status);
+create index idx_tasks_user_name_task_status on tasks (user_name, task_status);
+create index idx_tasks_revision on tasks (revision, id);
+
+create table task_tombstones (
+    task_id integer not null primary key,
+    revision bigint not null,
+    deleted_at timestamp(6) with time zone
+);
+
+create index idx_task_tombstones_revision on task_tombstones (revision, task_id);
+
+create table import_jobs (
+    id varchar(255) not null primary key,
+    status varchar(255),
+    format varchar(255),
+    spool_file varchar(255),
+    lines_committed bigint not null,
+    rows_processed bigint not null,
+    rows_failed bigint not null,
+    elapsed_millis bigint not null,
+    error varchar(255),
+    created_at timestamp(6) with time zone,
+    finished_at timestamp(6) with time zone
+);
+
+create index idx_import_jobs_status on import_jobs (status);
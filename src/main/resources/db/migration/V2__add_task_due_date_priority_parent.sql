@@ -0,0 +1,9 @@
+-- Due dates, priorities and subtasks; task_status code 6 (Overdue) needs no schema change.
+
+alter table tasks add column due_at timestamp(6) with time zone;
+alter table tasks add column priority integer;
+alter table tasks add column parent_id integer;
+
+create index idx_tasks_task_status_due_at on tasks (task_status, due_at);
+create index idx_tasks_priority on tasks (priority);
+create index idx_tasks_parent_id on tasks (parent_id);
@@ -0,0 +1,8 @@
+-- Creates the tasks_seq sequence the task ids now come from, for a tasks table
+-- created while ids were generated by an identity column.
+-- Hibernate's pooled optimizer hands out the 50 ids up to each value it reads,
+-- so the sequence starts 50 above the highest existing id.
+
+create sequence if not exists tasks_seq start with 1 increment by 50;
+
+alter sequence tasks_seq restart with (select coalesce(max(id), 0) + 50 from tasks);
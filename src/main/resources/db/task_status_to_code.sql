@@ -0,0 +1,31 @@
+-- Converts tasks.task_status from the former free-form VARCHAR column to the
+-- SMALLINT codes of com.work.task.entity.TaskStatus.
+-- Only needed for a tasks table created before the status was normalised;
+-- schemas generated by Hibernate already use the SMALLINT column.
+-- Statuses that do not match any known label or alias end up as NULL.
+
+alter table tasks add column task_status_code smallint;
+
+update tasks set task_status_code =
+    case upper(replace(replace(replace(trim(task_status), ' ', ''), '_', ''), '-', ''))
+        when 'TODO' then 1
+        when 'OPEN' then 1
+        when 'NEW' then 1
+        when 'INPROGRESS' then 2
+        when 'ONHOLD' then 3
+        when 'DONE' then 4
+        when 'COMPLETE' then 4
+        when 'COMPLETED' then 4
+        when 'CLOSED' then 4
+        when 'CANCELLED' then 5
+        when 'CANCELED' then 5
+    end;
+
+drop index if exists idx_tasks_task_status;
+drop index if exists idx_tasks_user_name_task_status;
+
+alter table tasks drop column task_status;
+alter table tasks rename column task_status_code to task_status;
+
+create index idx_tasks_task_status on tasks (task_status);
+create index idx_tasks_user_name_task_status on tasks (user_name, task_status);
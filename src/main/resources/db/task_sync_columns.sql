@@ -0,0 +1,21 @@
+-- Adds the timestamps, revision and tombstones used by delta sync (/tasks/sync)
+-- to a tasks table created before they existed.
+-- Existing rows get their own revision so the first sync of every client sees them.
+
+create sequence if not exists task_revision_seq start with 1 increment by 1;
+
+alter table tasks add column created_at timestamp(6) with time zone;
+alter table tasks add column updated_at timestamp(6) with time zone;
+alter table tasks add column revision bigint not null default 0;
+
+update tasks set revision = nextval('task_revision_seq'), created_at = current_timestamp, updated_at = current_timestamp;
+
+create index idx_tasks_revision on tasks (revision, id);
+
+create table task_tombstones (
+    task_id integer not null primary key,
+    revision bigint not null,
+    deleted_at timestamp(6) with time zone
+);
+
+create index idx_task_tombstones_revision on task_tombstones (revision, task_id);
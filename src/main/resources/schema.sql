@@ -0,0 +1,2 @@
+-- Objects not derived from the entities, created before Hibernate builds the schema of an embedded database
+create sequence if not exists task_revision_seq start with 1 increment by 1;
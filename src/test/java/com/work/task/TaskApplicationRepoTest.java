@@ -1,12 +1,19 @@
 package com.work.task;
 
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
 import com.work.task.repository.TaskRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -22,4 +29,57 @@ class TaskApplicationRepoTest {
         assertNotNull(taskRepository.findByUserName("ABC"));
     }
 
+    @Test
+    public void testKeysetPageStartsAfterCursor(){
+        List<Task> saved = taskRepository.saveAll(List.of(
+                createTask("First", "First description", TaskStatus.IN_PROGRESS, "ABC"),
+                createTask("Second", "Second description", TaskStatus.IN_PROGRESS, "ABC"),
+                createTask("Third", "Third description", TaskStatus.IN_PROGRESS, "ABC")));
+        int firstId = saved.get(0).getId();
+
+        List<Task> page = taskRepository.findByIdGreaterThanOrderByIdAsc(firstId, PageRequest.of(0, 1));
+
+        assertEquals(1, page.size());
+        assertEquals(saved.get(1).getId(), page.get(0).getId());
+    }
+
+    @Test
+    public void testFindByTaskStatusAndUserName(){
+        taskRepository.saveAll(List.of(
+                createTask("First", "First description", TaskStatus.IN_PROGRESS, "ABC"),
+                createTask("Second", "Second description", TaskStatus.DONE, "ABC"),
+                createTask("Third", "Third description", TaskStatus.IN_PROGRESS, "XYZ"),
+                createTask("Fourth", "Fourth description", null, "XYZ")));
+
+        assertEquals(2, taskRepository.findByTaskStatus(TaskStatus.IN_PROGRESS).size());
+        Page<Task> page = taskRepository.findByTaskStatusAndUserName(TaskStatus.IN_PROGRESS, "XYZ", PageRequest.of(0, 10));
+        assertEquals(1, page.getTotalElements());
+        assertEquals("Third", page.getContent().get(0).getTaskName());
+    }
+
+    @Test
+    public void testCountByUserNameAndTaskStatus(){
+        taskRepository.saveAll(List.of(
+                createTask("First", "First description", TaskStatus.IN_PROGRESS, "ABC"),
+                createTask("Second", "Second description", TaskStatus.IN_PROGRESS, "ABC"),
+                createTask("Third", "Third description", TaskStatus.DONE, "ABC")));
+
+        List<TaskRepository.TaskCount> counts = taskRepository.countByUserNameAndTaskStatus();
+
+        assertEquals(2, counts.size());
+        TaskRepository.TaskCount inProgress = counts.stream()
+                .filter(c -> c.getTaskStatus() == TaskStatus.IN_PROGRESS).findFirst().orElseThrow();
+        assertEquals(2, inProgress.getTotal());
+        assertEquals("ABC", inProgress.getUserName());
+    }
+
+    private Task createTask(String taskName, String taskDescription, TaskStatus taskStatus, String username) {
+        Task task = new Task();
+        task.setTaskName(taskName);
+        task.setTaskDescription(taskDescription);
+        task.setTaskStatus(taskStatus);
+        task.setUserName(username);
+        return task;
+    }
+
 }
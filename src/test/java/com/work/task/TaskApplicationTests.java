@@ -1,17 +1,66 @@
 package com.work.task;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.work.task.controller.TaskController;
+import com.work.task.entity.ImportJob;
 import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskChangesResponseEntity;
+import com.work.task.entity.TaskImportResponseEntity;
+import com.work.task.entity.TaskStatus;
+import com.work.task.entity.TaskSyncResponseEntity;
+import com.work.task.exception.InvalidTaskRequestException;
+import com.work.task.exception.TaskNotFoundException;
+import com.work.task.exception.TaskVersionMismatchException;
 import com.work.task.repository.TaskRepository;
+import com.work.task.service.TaskChangeFeed;
+import com.work.task.service.TaskImportService;
 import com.work.task.service.TaskService;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
 class TaskApplicationTests {
 
     @Autowired
@@ -23,10 +72,25 @@ class TaskApplicationTests {
     @Autowired
     TaskRepository taskRepository;
 
+    @Autowired
+    CacheManager cacheManager;
+
+    @Autowired
+    TaskImportService taskImportService;
+
+    @Autowired
+    TaskChangeFeed taskChangeFeed;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MockMvc mockMvc;
+
     private static final int TASK_ID = 1;
     private static final String TASK_NAME = "AWS Certification";
     private static final String TASK_DESCRIPTION = "AWS Certification description";
-    private static final String TASK_STATUS = "In Progress";
+    private static final TaskStatus TASK_STATUS = TaskStatus.IN_PROGRESS;
 
     private static final String USERNAME = "PSB";
 
@@ -45,7 +109,446 @@ class TaskApplicationTests {
         assertEquals(task.toString(), "Task(id=1, taskName=AWS Certification, taskDescription=AWS Certification description, taskStatus=In Progress, userName=PSB)");
     }
 
-    private Task createTask(int taskId, String taskName, String taskDescription, String taskStatus, String username) {
+    @Test
+    public void testFindTaskByIdIsCachedAndRefreshedOnPatch() {
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+        Cache cache = cacheManager.getCache(TaskService.TASKS_CACHE);
+        cache.clear();
+
+        taskService.findTaskById(saved.getId());
+        taskService.findTaskById(saved.getId());
+        assertNotNull(cache.get(saved.getId()));
+
+        Task patch = new Task();
+        patch.setTaskStatus(TaskStatus.DONE);
+        taskService.patchTask(saved.getId(), patch, null);
+        assertEquals(TaskStatus.DONE, taskService.findTaskById(saved.getId()).getTaskStatus());
+
+        taskService.deleteTaskById(saved.getId());
+        assertNull(cache.get(saved.getId()));
+    }
+
+    @Test
+    public void testSearchByUserNameIsEvictedOnSave() {
+        String userName = "cache-user";
+        assertEquals(0, taskService.searchByUserName(userName).size());
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, userName));
+        assertEquals(1, taskService.searchByUserName(userName).size());
+
+        // moving the task to another user also evicts the list of its previous user
+        saved.setUserName("other-cache-user");
+        taskService.saveTask(saved);
+        assertEquals(0, taskService.searchByUserName(userName).size());
+    }
+
+    @Test
+    public void testImportTasksCommitsEveryChunk() {
+        long before = taskRepository.count();
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            tasks.add(createTask(0, TASK_NAME + i, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+        }
+        Task orphan = createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        orphan.setParentId(Integer.MAX_VALUE);
+        tasks.add(orphan);
+
+        TaskImportResponseEntity result = taskService.importTasks(tasks.iterator());
+
+        assertEquals(1200, result.getRowsProcessed());
+        assertEquals(1, result.getRowsFailed());
+        assertEquals(3, result.getChunks().size());
+        assertEquals(1, result.getChunks().get(2).getRowsFailed());
+        assertEquals(before + 1200, taskRepository.count());
+    }
+
+    @Test
+    public void testSaveTasksReturnsGeneratedIds() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            tasks.add(createTask(0, TASK_NAME + i, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+        }
+
+        List<Task> saved = taskService.saveTasks(tasks);
+
+        assertEquals(120, saved.stream().map(Task::getId).distinct().count());
+        assertNotNull(taskService.findTaskById(saved.get(119).getId()));
+    }
+
+    @Test
+    public void testImportJobCompletesAndCountsFailedRows() throws Exception {
+        String csv = "taskName,taskDescription,taskStatus,userName\n"
+                + "Import one,\"First, with comma\",In Progress,import-user\n"
+                + "Import two,Second,Someday,import-user\n"
+                + "Import three,Third,DONE,import-user\n";
+
+        ImportJob job = taskImportService.submit(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ImportJob.Format.CSV);
+        for (int i = 0; i < 100 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(50);
+            job = taskImportService.findJobById(job.getId());
+        }
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getRowsProcessed());
+        assertEquals(1, job.getRowsFailed());
+        assertEquals("First, with comma", taskRepository.findByUserName("import-user").get(0).getTaskDescription());
+    }
+
+    @Test
+    public void testImportJobRejectsRowsWithoutTheirParent() throws Exception {
+        Task parent = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "import-parent-user"));
+        String ndjson = "{\"taskName\":\"Child\",\"userName\":\"import-parent-user\",\"parentId\":" + parent.getId() + "}\n"
+                + "{\"taskName\":\"Orphan\",\"userName\":\"import-parent-user\",\"parentId\":" + Integer.MAX_VALUE + "}\n";
+
+        ImportJob job = taskImportService.submit(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), ImportJob.Format.NDJSON);
+        for (int i = 0; i < 100 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(50);
+            job = taskImportService.findJobById(job.getId());
+        }
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, job.getRowsProcessed());
+        assertEquals(1, job.getRowsFailed());
+        assertEquals(List.of("Child"), taskRepository.findByUserName("import-parent-user").stream()
+                .filter(task -> task.getParentId() != null).map(Task::getTaskName).toList());
+    }
+
+    @Test
+    public void testPrometheusScrapeHasRouteTimersAndServiceCounters() throws Exception {
+        mockMvc.perform(get("/tasks/stats")).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("uri=\"/tasks/stats\""));
+        assertTrue(scrape.contains("task_service_operations_total{"));
+        assertTrue(scrape.contains("method=\"getTaskStats\""));
+        assertTrue(scrape.contains("hikaricp_connections_active"));
+        assertTrue(scrape.contains("hibernate_"));
+    }
+
+    @Test
+    public void testPatchTaskWithStaleVersionIsRejected() {
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+        long version = taskService.findTaskById(saved.getId()).getVersion();
+
+        Task patch = new Task();
+        patch.setTaskName("Renamed");
+        Task patched = taskService.patchTask(saved.getId(), patch, version);
+        assertEquals(version + 1, patched.getVersion());
+
+        assertThrows(TaskVersionMismatchException.class, () -> taskService.patchTask(saved.getId(), patch, version));
+        assertThrows(TaskVersionMismatchException.class, () -> taskService.updateTask(saved.getId(), patch, version));
+    }
+
+    @Test
+    public void testPatchTaskWritesOnlySuppliedFields() {
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+
+        Task patch = new Task();
+        patch.setTaskDescription("Patched description");
+        Task patched = taskService.patchTask(saved.getId(), patch, null);
+
+        assertEquals(TASK_NAME, patched.getTaskName());
+        assertEquals("Patched description", patched.getTaskDescription());
+        assertEquals(saved.getVersion() + 1, patched.getVersion());
+        assertThrows(TaskNotFoundException.class, () -> taskService.patchTask(Integer.MAX_VALUE, patch, null));
+    }
+
+    @Test
+    public void testUpdateTaskIfMatchReturnsNextVersion() {
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+
+        Task replacement = createTask(saved.getId(), "Replaced", null, TaskStatus.DONE, USERNAME);
+        Task updated = taskService.updateTask(saved.getId(), replacement, saved.getVersion());
+
+        assertEquals(saved.getVersion() + 1, updated.getVersion());
+        Task reloaded = taskRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("Replaced", reloaded.getTaskName());
+        assertNull(reloaded.getTaskDescription());
+        assertEquals(updated.getVersion(), reloaded.getVersion());
+        assertNotNull(updated.getCreatedAt());
+        assertEquals(reloaded.getCreatedAt(), taskService.findTaskById(saved.getId()).getCreatedAt());
+    }
+
+    @Test
+    public void testPatchTasksUpdatesAllMatchingRows() {
+        String userName = "bulk-patch-user";
+        taskService.saveTasks(List.of(
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.TODO, userName),
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.TODO, userName),
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.IN_PROGRESS, userName)));
+
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.DONE);
+        assertEquals(2, taskService.patchTasks(TaskStatus.TODO, userName, changes));
+
+        assertEquals(2, taskRepository.findByUserName(userName).stream()
+                .filter(task -> task.getTaskStatus() == TaskStatus.DONE && task.getVersion() == 1).count());
+        assertThrows(InvalidTaskRequestException.class, () -> taskService.patchTasks(null, null, changes));
+    }
+
+    @Test
+    public void testDeleteTasksByIdsAndByFilter() {
+        String userName = "bulk-delete-user";
+        List<Task> saved = taskService.saveTasks(List.of(
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.DONE, userName),
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.DONE, userName),
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.TODO, userName),
+                createTask(0, TASK_NAME, TASK_DESCRIPTION, TaskStatus.TODO, userName)));
+
+        long since = taskChangeFeed.getLastSequence();
+        assertEquals(1, taskService.deleteTasks(List.of(saved.get(2).getId(), Integer.MAX_VALUE), null, null));
+        assertEquals(List.of(saved.get(2).getId()), taskChangeFeed.changesSince(since, 10).getEvents().stream()
+                .map(TaskChangeEvent::getTaskId).toList());
+        assertEquals(0, taskService.deleteTasks(List.of(Integer.MAX_VALUE), null, null));
+        assertEquals(2, taskService.deleteTasks(null, TaskStatus.DONE, userName));
+        assertEquals(1, taskRepository.findByUserName(userName).size());
+
+        taskService.deleteTaskById(saved.get(3).getId());
+        assertThrows(TaskNotFoundException.class, () -> taskService.deleteTaskById(saved.get(3).getId()));
+        assertThrows(InvalidTaskRequestException.class, () -> taskService.deleteTasks(null, null, null));
+    }
+
+    @Test
+    public void testSearchByTextIsRankedAndFollowsWrites() throws Exception {
+        Task kubernetes = taskService.saveTask(createTask(0, "Kubernetes upgrade", "Upgrade the staging cluster", TASK_STATUS, USERNAME));
+        Task docs = taskService.saveTask(createTask(0, "Write docs", "Document the kubernetes upgrade runbook", TASK_STATUS, USERNAME));
+        Pageable pageable = PageRequest.of(0, 10);
+
+        Page<Task> hits = taskService.searchByText("kubernetes upgrade", pageable);
+        assertEquals(2, hits.getTotalElements());
+        assertEquals(kubernetes.getId(), hits.getContent().get(0).getId());
+        assertEquals(1, taskService.searchByText("runbook", PageRequest.of(0, 1)).getTotalElements());
+
+        Task changes = new Task();
+        changes.setTaskDescription("Document the release process");
+        taskService.patchTask(docs.getId(), changes, null);
+        assertEquals(0, taskService.searchByText("runbook", pageable).getTotalElements());
+        assertEquals(1, taskService.searchByText("release", pageable).getTotalElements());
+
+        mockMvc.perform(get("/tasks/search/text").param("q", "kubernetes").param("page", "100000").param("size", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"count\":1}"));
+
+        taskService.deleteTaskById(kubernetes.getId());
+        assertEquals(0, taskService.searchByText("kubernetes", pageable).getTotalElements());
+        assertThrows(InvalidTaskRequestException.class, () -> taskService.searchByText(" ", pageable));
+    }
+
+    @Test
+    public void testChangeFeedNumbersCommittedChanges() {
+        long since = taskChangeFeed.getLastSequence();
+        Task saved = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "change-feed-user"));
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.DONE);
+        taskService.patchTask(saved.getId(), changes, null);
+        taskService.deleteTaskById(saved.getId());
+
+        TaskChangesResponseEntity response = taskChangeFeed.changesSince(since, 10);
+        assertEquals(since + 3, response.getLastSequence());
+        assertEquals(List.of(TaskChangeEvent.Type.CREATED, TaskChangeEvent.Type.UPDATED, TaskChangeEvent.Type.DELETED),
+                response.getEvents().stream().map(TaskChangeEvent::getType).toList());
+        assertEquals(since + 1, response.getEvents().get(0).getSequence());
+        assertEquals(TaskStatus.DONE, response.getEvents().get(1).getTask().getTaskStatus());
+        assertEquals(saved.getId(), response.getEvents().get(2).getTaskId());
+        assertTrue(taskChangeFeed.changesSince(response.getLastSequence() + 1, 10).isReset());
+    }
+
+    @Test
+    public void testChangeFeedStreamsServerSentEvents() throws Exception {
+        MvcResult result = mockMvc.perform(get("/tasks/changes").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Task saved = taskService.saveTask(createTask(0, "Streamed task", TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+
+        String expected = "\"taskId\":" + saved.getId();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains(expected), body);
+        assertTrue(body.contains("event:CREATED"), body);
+    }
+
+    @Test
+    public void testSyncTasksReturnsChangesAndTombstonesSinceRevision() {
+        long since = taskRepository.nextRevision();
+        Task kept = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "sync-user"));
+        Task deleted = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "sync-user"));
+        assertNotNull(kept.getCreatedAt());
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.DONE);
+        Task patched = taskService.patchTask(kept.getId(), changes, null);
+        assertTrue(patched.getRevision() > kept.getRevision());
+        assertNotNull(patched.getUpdatedAt());
+        taskService.deleteTaskById(deleted.getId());
+
+        TaskSyncResponseEntity first = taskService.syncTasks(since, 0, 1);
+        assertTrue(first.isHasMore());
+        assertEquals(List.of(kept.getId()), first.getTasks().stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.DONE, first.getTasks().get(0).getTaskStatus());
+        assertEquals(patched.getRevision(), first.getRevision());
+
+        TaskSyncResponseEntity second = taskService.syncTasks(first.getRevision(), first.getAfterId(), 1);
+        assertEquals(List.of(deleted.getId()), second.getDeletedIds());
+        assertTrue(second.getTasks().isEmpty());
+
+        TaskSyncResponseEntity last = taskService.syncTasks(second.getRevision(), second.getAfterId(), 1);
+        assertFalse(last.isHasMore());
+        assertTrue(last.getTasks().isEmpty() && last.getDeletedIds().isEmpty());
+        assertEquals(second.getRevision(), last.getRevision());
+    }
+
+    @Test
+    public void testSyncStopsBelowRevisionsStillBeingWritten() throws Exception {
+        long since = taskRepository.nextRevision();
+        int[] slowId = new int[1];
+        int[] fastId = new int[1];
+        transactionTemplate.executeWithoutResult(tx -> {
+            slowId[0] = taskService.saveTask(createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "sync-slow")).getId();
+            try {
+                fastId[0] = CompletableFuture.supplyAsync(() -> taskService.saveTask(
+                        createTask(0, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, "sync-fast")).getId()).get();
+                TaskSyncResponseEntity during = CompletableFuture.supplyAsync(() -> taskService.syncTasks(since, 0, 100)).get();
+                assertTrue(during.getTasks().isEmpty(), during.toString());
+                assertEquals(since, during.getRevision());
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<Integer> synced = taskService.syncTasks(since, 0, 100).getTasks().stream().map(Task::getId).toList();
+        assertTrue(synced.containsAll(List.of(slowId[0], fastId[0])), synced.toString());
+    }
+
+    @Test
+    public void testListEndpointsNegotiateCborAndSmile() throws Exception {
+        Task saved = taskService.saveTask(createTask(0, "Binary task", TASK_DESCRIPTION, TASK_STATUS, USERNAME));
+        String json = mockMvc.perform(get("/tasks/search/user/{userName}", USERNAME).accept(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] cbor = mockMvc.perform(get("/tasks/search/user/{userName}", USERNAME).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode tasks = new ObjectMapper(new CBORFactory()).readTree(cbor);
+        assertTrue(cbor.length < json.length());
+        assertEquals(new ObjectMapper().readTree(json), tasks);
+
+        byte[] smile = mockMvc.perform(get("/tasks/{id}", saved.getId()).accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals("Binary task", new ObjectMapper(new SmileFactory()).readTree(smile).get("taskName").asText());
+    }
+
+    @Test
+    public void testExportStreamsFilteredCsvAndGzipNdjsonFromCursor() throws Exception {
+        Task first = taskService.saveTask(createTask(0, "Export, quoted", "Says \"hi\"", TaskStatus.DONE, "export-user"));
+        Task second = taskService.saveTask(createTask(0, "Export plain", TASK_DESCRIPTION, TaskStatus.DONE, "export-user"));
+        taskService.saveTask(createTask(0, "Export other status", TASK_DESCRIPTION, TaskStatus.TODO, "export-user"));
+
+        MvcResult csv = mockMvc.perform(get("/tasks/export").param("format", "csv")
+                        .param("status", "Done").param("user", "export-user"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+        assertEquals("id,taskName,taskDescription,taskStatus,userName,version,revision,createdAt,updatedAt,dueAt,priority,parentId", lines[0]);
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith(first.getId() + ",\"Export, quoted\",\"Says \"\"hi\"\"\",Done,export-user,0,"), lines[1]);
+
+        MvcResult ndjson = mockMvc.perform(get("/tasks/export").param("format", "ndjson")
+                        .param("user", "export-user").param("after", String.valueOf(first.getId())).param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] gzipped = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String[] rows = new String(new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes(),
+                StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows.length);
+        JsonNode row = new ObjectMapper().readTree(rows[0]);
+        assertEquals(second.getId(), row.get("id").asInt());
+        assertEquals("Done", row.get("taskStatus").asText());
+        assertEquals(taskRepository.findById(second.getId()).orElseThrow().getCreatedAt(), Instant.parse(row.get("createdAt").asText()));
+
+        mockMvc.perform(get("/tasks/export").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testSubtaskTreeIsFetchedInDepthOrderAndCyclesAreRejected() throws Exception {
+        Task root = taskService.saveTask(createTask(0, "Ship", TASK_DESCRIPTION, TaskStatus.TODO, "tree-user"));
+        Task child = createTask(0, "Build", TASK_DESCRIPTION, TaskStatus.TODO, "tree-user");
+        child.setParentId(root.getId());
+        child = taskService.saveTask(child);
+        Task grandChild = createTask(0, "Compile", TASK_DESCRIPTION, TaskStatus.TODO, "tree-user");
+        grandChild.setParentId(child.getId());
+        grandChild = taskService.saveTask(grandChild);
+        Task sibling = createTask(0, "Docs", TASK_DESCRIPTION, TaskStatus.TODO, "tree-user");
+        sibling.setParentId(root.getId());
+        sibling = taskService.saveTask(sibling);
+
+        JsonNode tree = new ObjectMapper().readTree(mockMvc.perform(get("/tasks/{id}/subtasks", root.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        List<Integer> ids = new ArrayList<>();
+        tree.forEach(node -> ids.add(node.get("id").asInt()));
+        assertEquals(List.of(root.getId(), child.getId(), sibling.getId(), grandChild.getId()), ids);
+        assertEquals(child.getId(), tree.get(3).get("parentId").asInt());
+        assertEquals(List.of(grandChild.getId()), taskService.getSubtaskTree(grandChild.getId()).stream().map(Task::getId).toList());
+
+        Task cycle = new Task();
+        cycle.setParentId(grandChild.getId());
+        int rootId = root.getId();
+        assertThrows(InvalidTaskRequestException.class, () -> taskService.patchTask(rootId, cycle, null));
+        Task orphan = createTask(0, "Orphan", TASK_DESCRIPTION, TaskStatus.TODO, "tree-user");
+        orphan.setParentId(Integer.MAX_VALUE);
+        assertThrows(InvalidTaskRequestException.class, () -> taskService.saveTask(orphan));
+        assertThrows(TaskNotFoundException.class, () -> taskService.getSubtaskTree(Integer.MAX_VALUE));
+
+        taskService.findTaskById(grandChild.getId());
+        taskService.deleteTaskById(child.getId());
+        Task detached = taskService.findTaskById(grandChild.getId());
+        assertNull(detached.getParentId());
+        assertEquals(grandChild.getVersion() + 1, detached.getVersion());
+        assertEquals(List.of(root.getId(), sibling.getId()), taskService.getSubtaskTree(root.getId()).stream().map(Task::getId).toList());
+        assertNotNull(taskService.updateTask(detached.getId(), detached, detached.getVersion()));
+    }
+
+    @Test
+    public void testDueTasksAreMovedToOverdue() throws Exception {
+        Task late = createTask(0, "Late", TASK_DESCRIPTION, TaskStatus.IN_PROGRESS, "due-user");
+        late.setDueAt(Instant.now().minusSeconds(60));
+        late.setPriority(5);
+        Task done = createTask(0, "Done", TASK_DESCRIPTION, TaskStatus.DONE, "due-user");
+        done.setDueAt(Instant.now().minusSeconds(60));
+        Task later = createTask(0, "Later", TASK_DESCRIPTION, TaskStatus.TODO, "due-user");
+        later.setDueAt(Instant.now().plusSeconds(3600));
+        List<Task> saved = taskService.saveTasks(List.of(late, done, later));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (taskService.findTaskById(saved.get(0).getId()).getTaskStatus() != TaskStatus.OVERDUE
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Task overdue = taskService.findTaskById(saved.get(0).getId());
+        assertEquals(TaskStatus.OVERDUE, overdue.getTaskStatus());
+        assertEquals(1, overdue.getVersion());
+        assertEquals(5, overdue.getPriority());
+        assertEquals(TaskStatus.DONE, taskService.findTaskById(saved.get(1).getId()).getTaskStatus());
+        assertEquals(TaskStatus.TODO, taskService.findTaskById(saved.get(2).getId()).getTaskStatus());
+        assertTrue(taskService.markOverdue(Instant.now(), 10).isEmpty());
+    }
+
+    private Task createTask(int taskId, String taskName, String taskDescription, TaskStatus taskStatus, String username) {
         Task task = new Task();
         task.setId(taskId);
         task.setTaskName(taskName);
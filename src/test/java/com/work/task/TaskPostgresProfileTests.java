@@ -0,0 +1,55 @@
+package com.work.task;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import com.work.task.service.TaskService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the postgres profile against H2 in PostgreSQL mode: the schema comes from the Flyway migrations
+ * and is validated by Hibernate. The stand-in replica is a second database created from the same
+ * migrations and never replicated to, so reads routed to it do not see writes made on the primary.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tasks;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "task.datasource.replica.jdbc-url=jdbc:h2:mem:tasks-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;INIT=RUNSCRIPT FROM 'classpath:db/migration/V1__create_task_schema.sql'\\\\;"
+                + "RUNSCRIPT FROM 'classpath:db/migration/V2__add_task_due_date_priority_parent.sql'",
+        "task.datasource.replica.username=sa",
+        "task.datasource.replica.password="
+})
+@ActiveProfiles("postgres")
+class TaskPostgresProfileTests {
+
+    @Autowired
+    Flyway flyway;
+
+    @Autowired
+    TaskService taskService;
+
+    @Test
+    void testSchemaIsMigratedByFlyway() {
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+    }
+
+    @Test
+    void testReadOnlyMethodsAreRoutedToReplica() {
+        Task task = new Task();
+        task.setTaskName("Replica routing");
+        task.setTaskStatus(TaskStatus.TODO);
+        Task saved = taskService.saveTask(task);
+        assertTrue(saved.getId() > 0);
+
+        assertEquals(0, taskService.countTasks());
+        assertTrue(taskService.searchByTaskStatus(TaskStatus.TODO).isEmpty());
+    }
+}
@@ -0,0 +1,61 @@
+package com.work.task.controller;
+
+import com.work.task.config.TaskChangeProperties;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskChangesResponseEntity;
+import com.work.task.service.TaskChangeFeed;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TaskChangeController.class)
+@Import(TaskChangeProperties.class)
+class TaskChangeControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @MockBean
+    TaskChangeFeed taskChangeFeed;
+
+    @Test
+    void testGetChangesSince() throws Exception {
+        TaskChangeEvent event = new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 7, null);
+        event.setSequence(43);
+        given(taskChangeFeed.changesSince(42, 500)).willReturn(new TaskChangesResponseEntity(43, false, List.of(event)));
+        this.mockMvc.perform(get("/tasks/changes")
+                        .param("since", "42")
+                        .param("limit", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lastSequence").value(43))
+                .andExpect(jsonPath("$.events[0].type").value("DELETED"))
+                .andExpect(jsonPath("$.events[0].taskId").value(7))
+                .andExpect(jsonPath("$.events[0].task").doesNotExist());
+        verify(taskChangeFeed, times(1)).changesSince(42, 500);
+    }
+
+    @Test
+    void testStreamChangesResumesFromLastEventId() throws Exception {
+        given(taskChangeFeed.subscribe(12L)).willReturn(new SseEmitter());
+        this.mockMvc.perform(get("/tasks/changes")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .param("since", "3")
+                        .header(TaskChangeController.LAST_EVENT_ID, "12"))
+                .andExpect(request().asyncStarted());
+        verify(taskChangeFeed, times(1)).subscribe(12L);
+    }
+}
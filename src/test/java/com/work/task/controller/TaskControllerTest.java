@@ -2,7 +2,12 @@ package com.work.task.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.work.task.entity.Task;
+import com.work.task.entity.TaskImportResponseEntity;
+import com.work.task.entity.TaskStatsResponseEntity;
+import com.work.task.entity.TaskStatus;
+import com.work.task.entity.TaskSyncResponseEntity;
 import com.work.task.exception.TaskNotFoundException;
+import com.work.task.exception.TaskVersionMismatchException;
 import com.work.task.service.TaskService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,18 +16,33 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @RunWith(SpringRunner.class)
@@ -32,7 +52,7 @@ class TaskControllerTest {
     private static final int TASK_ID = 1;
     private static final String TASK_NAME = "Certification";
     private static final String TASK_DESCRIPTION = "Certification description";
-    private static final String TASK_STATUS = "In Progress";
+    private static final TaskStatus TASK_STATUS = TaskStatus.IN_PROGRESS;
     private static final String USERNAME = "ABC";
 
     @Autowired
@@ -53,21 +73,115 @@ class TaskControllerTest {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
         List<Task> taskList = new ArrayList<>();
         taskList.add(task);
-        given(taskService.getAllTasks()).willReturn(taskList);
-        this.mockMvc.perform(get("/tasks/")).andExpect(status().isOk());
-        verify(taskService, times(1)).getAllTasks();
+        given(taskService.getAllTasks(0, 100)).willReturn(taskList);
+        given(taskService.countTasks()).willReturn(1L);
+        this.mockMvc.perform(get("/tasks/")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        verify(taskService, times(1)).getAllTasks(0, 100);
+        verify(taskService, times(1)).countTasks();
         verifyNoMoreInteractions(taskService);
     }
 
+    @Test
+    void testGetAllTasksNextCursor() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        List<Task> taskList = new ArrayList<>();
+        taskList.add(task);
+        given(taskService.getAllTasks(0, 1)).willReturn(taskList);
+        given(taskService.countTasks()).willReturn(5L);
+        this.mockMvc.perform(get("/tasks/").param("after", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5))
+                .andExpect(jsonPath("$.nextCursor").value(TASK_ID));
+        verify(taskService, times(1)).getAllTasks(0, 1);
+    }
+
+    @Test
+    void testStreamAllTasks() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        doAnswer(invocation -> {
+            Consumer<Task> consumer = invocation.getArgument(1);
+            consumer.accept(task);
+            consumer.accept(task);
+            return null;
+        }).when(taskService).streamTasks(eq(0), any());
+        MvcResult result = this.mockMvc.perform(get("/tasks/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = this.mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, body.trim().split("\n").length);
+    }
+
     @Test
     void testGetOneTask() throws Exception {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
         when(taskService.findTaskById(1)).thenReturn(task);
-        this.mockMvc.perform(get("/tasks/{id}", 1)).andExpect(status().isOk());
+        this.mockMvc.perform(get("/tasks/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.all-tasks.href").value("http://localhost/tasks/?limit=100"));
         verify(taskService, times(1)).findTaskById(1);
         verifyNoMoreInteractions(taskService);
     }
 
+    @Test
+    void testGetOneTaskETag() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        task.setVersion(3);
+        when(taskService.findTaskById(1)).thenReturn(task);
+        this.mockMvc.perform(get("/tasks/{id}", 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        this.mockMvc.perform(get("/tasks/{id}", 1).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        this.mockMvc.perform(get("/tasks/{id}", 1).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testPatchTaskIfMatch() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        Task patched = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        patched.setVersion(4);
+        ObjectMapper mapper = new ObjectMapper();
+        given(taskService.patchTask(1, task, 3L)).willReturn(patched);
+        this.mockMvc.perform(patch("/tasks/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(task)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+        verify(taskService, times(1)).patchTask(1, task, 3L);
+    }
+
+    @Test
+    void testUpdateTaskVersionMismatch() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        ObjectMapper mapper = new ObjectMapper();
+        given(taskService.updateTask(1, task, 2L))
+                .willThrow(new TaskVersionMismatchException("Task 1 is at version 3, not 2"));
+        this.mockMvc.perform(put("/tasks/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(task)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testUpdateTaskWeakIfMatchNeverMatches() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        ObjectMapper mapper = new ObjectMapper();
+        this.mockMvc.perform(put("/tasks/{id}", 1)
+                        .header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(task)))
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(taskService);
+    }
+
     @Test
     void testAddTask() throws Exception {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
@@ -100,17 +214,41 @@ class TaskControllerTest {
 
     }
 
+    @Test
+    void testAddTasksBulk() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(task) + "\n" + mapper.writeValueAsString(task) + "\n";
+        List<Task> parsed = new ArrayList<>();
+        given(taskService.importTasks(any())).willAnswer(invocation -> {
+            Iterator<Task> tasks = invocation.getArgument(0);
+            tasks.forEachRemaining(parsed::add);
+            TaskImportResponseEntity result = new TaskImportResponseEntity();
+            result.setRowsProcessed(parsed.size());
+            return result;
+        });
+
+        this.mockMvc.perform(post("/tasks/addTasks/bulk")
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsProcessed").value(2));
+        assertEquals(List.of(task, task), parsed);
+        verify(taskService, times(1)).importTasks(any());
+        verifyNoMoreInteractions(taskService);
+    }
+
     @Test
     void testUpdateTask() throws Exception {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
         ObjectMapper mapper = new ObjectMapper();
-        given(taskService.updateTask(task.getId(),task)).willReturn(task);
+        given(taskService.updateTask(task.getId(), task, null)).willReturn(task);
 
         this.mockMvc.perform(put("/tasks/{id}", 1)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(task)))
                 .andExpect(status().isOk());
-        verify(taskService, times(1)).updateTask(1,task);
+        verify(taskService, times(1)).updateTask(1, task, null);
         verifyNoMoreInteractions(taskService);
     }
 
@@ -118,13 +256,31 @@ class TaskControllerTest {
     void testPatchTask() throws Exception {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
         ObjectMapper mapper = new ObjectMapper();
-        given(taskService.patchTask(task.getId(),task)).willReturn(task);
+        given(taskService.patchTask(task.getId(), task, null)).willReturn(task);
 
         this.mockMvc.perform(patch("/tasks/{id}", 1)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(task)))
                 .andExpect(status().isOk());
-        verify(taskService, times(1)).patchTask(1,task);
+        verify(taskService, times(1)).patchTask(1, task, null);
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void testPatchTasks() throws Exception {
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.DONE);
+        ObjectMapper mapper = new ObjectMapper();
+        given(taskService.patchTasks(TaskStatus.IN_PROGRESS, USERNAME, changes)).willReturn(7);
+
+        this.mockMvc.perform(patch("/tasks")
+                        .param("status", "In Progress")
+                        .param("user", USERNAME)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(7));
+        verify(taskService, times(1)).patchTasks(TaskStatus.IN_PROGRESS, USERNAME, changes);
         verifyNoMoreInteractions(taskService);
     }
 
@@ -138,16 +294,113 @@ class TaskControllerTest {
         verifyNoMoreInteractions(taskService);
     }
 
+    @Test
+    void testDeleteTasksByIds() throws Exception {
+        given(taskService.deleteTasks(List.of(1, 2), null, null)).willReturn(2L);
+        this.mockMvc.perform(delete("/tasks")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2));
+        verify(taskService, times(1)).deleteTasks(List.of(1, 2), null, null);
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void testDeleteTasksByFilter() throws Exception {
+        given(taskService.deleteTasks(null, TaskStatus.DONE, USERNAME)).willReturn(5L);
+        this.mockMvc.perform(delete("/tasks").param("status", "Done").param("user", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(5));
+        verify(taskService, times(1)).deleteTasks(null, TaskStatus.DONE, USERNAME);
+        verifyNoMoreInteractions(taskService);
+    }
+
     @Test
     void testSearchByStatus() throws Exception {
         this.mockMvc.perform(get("/tasks/search/{status}", "In Progress")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
-        verify(taskService, times(1)).searchByTaskStatus("In Progress");
+        verify(taskService, times(1)).searchByTaskStatus(TaskStatus.IN_PROGRESS);
         verifyNoMoreInteractions(taskService);
 
     }
 
+    @Test
+    void testSearchByUnknownStatus() throws Exception {
+        this.mockMvc.perform(get("/tasks/search/{status}", "Someday")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(taskService);
+    }
+
+    @Test
+    void testGetTaskStats() throws Exception {
+        given(taskService.getTaskStats()).willReturn(new TaskStatsResponseEntity(3,
+                Map.of(TaskStatus.IN_PROGRESS.getLabel(), 2L, TaskStatus.DONE.getLabel(), 1L),
+                Map.of(USERNAME, 3L)));
+        this.mockMvc.perform(get("/tasks/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(3))
+                .andExpect(jsonPath("$.statusCount['In Progress']").value(2))
+                .andExpect(jsonPath("$.userCount.ABC").value(3));
+        verify(taskService, times(1)).getTaskStats();
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void testSearchTasks() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        Pageable pageable = PageRequest.of(1, 10, Sort.by(Sort.Direction.DESC, "taskName"));
+        given(taskService.searchTasks(TASK_STATUS, USERNAME, pageable))
+                .willReturn(new PageImpl<>(List.of(task), pageable, 11));
+        this.mockMvc.perform(get("/tasks/search")
+                        .param("status", "IN_PROGRESS")
+                        .param("user", USERNAME)
+                        .param("page", "1")
+                        .param("size", "10")
+                        .param("sort", "taskName,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(11))
+                .andExpect(jsonPath("$.taskList[0].taskName").value(TASK_NAME));
+        verify(taskService, times(1)).searchTasks(TASK_STATUS, USERNAME, pageable);
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void testSearchByText() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        Pageable pageable = PageRequest.of(0, 20);
+        given(taskService.searchByText("aws", pageable))
+                .willReturn(new PageImpl<>(List.of(task), pageable, 1));
+        this.mockMvc.perform(get("/tasks/search/text")
+                        .param("q", "aws")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.taskList[0].taskName").value(TASK_NAME));
+        verify(taskService, times(1)).searchByText("aws", pageable);
+        verifyNoMoreInteractions(taskService);
+    }
+
+    @Test
+    void testSyncTasks() throws Exception {
+        Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
+        given(taskService.syncTasks(120, 7, 1000))
+                .willReturn(new TaskSyncResponseEntity(125, 9, true, List.of(task), List.of(9)));
+        this.mockMvc.perform(get("/tasks/sync")
+                        .param("sinceRevision", "120")
+                        .param("afterId", "7")
+                        .param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.revision").value(125))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andExpect(jsonPath("$.tasks[0].taskName").value(TASK_NAME))
+                .andExpect(jsonPath("$.deletedIds[0]").value(9));
+        verify(taskService, times(1)).syncTasks(120, 7, 1000);
+        verifyNoMoreInteractions(taskService);
+    }
+
     @Test
     void testSearchByUserName() throws Exception {
         this.mockMvc.perform(get("/tasks/search/user/{userName}", "ABC")
@@ -161,7 +414,7 @@ class TaskControllerTest {
     void testTaskNotFoundException() throws Exception {
         Task task = createTask(TASK_ID, TASK_NAME, TASK_DESCRIPTION, TASK_STATUS, USERNAME);
         ObjectMapper mapper = new ObjectMapper();
-        given(taskService.patchTask(task.getId(), task))
+        given(taskService.patchTask(task.getId(), task, null))
                 .willThrow(new TaskNotFoundException("Task does not exist with id: " + task.getId()));
 
         this.mockMvc.perform(patch("/tasks/{id}", 1)
@@ -171,11 +424,11 @@ class TaskControllerTest {
                         .andExpect(result -> assertTrue(result.getResolvedException() instanceof TaskNotFoundException))
                         .andExpect(result -> assertEquals("Task does not exist with id: 1",
                             result.getResolvedException().getMessage()));
-        verify(taskService).patchTask(1, task);
+        verify(taskService).patchTask(1, task, null);
     }
 
 
-    private Task createTask(int taskId, String taskName, String taskDescription, String taskStatus, String username) {
+    private Task createTask(int taskId, String taskName, String taskDescription, TaskStatus taskStatus, String username) {
         Task task = new Task();
         task.setId(taskId);
         task.setTaskName(taskName);
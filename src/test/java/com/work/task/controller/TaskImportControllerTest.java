@@ -0,0 +1,100 @@
+package com.work.task.controller;
+
+import com.work.task.config.TaskImportProperties;
+import com.work.task.entity.ImportJob;
+import com.work.task.exception.ImportJobNotFoundException;
+import com.work.task.exception.ImportQueueFullException;
+import com.work.task.service.TaskImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TaskImportController.class)
+@Import(TaskImportProperties.class)
+class TaskImportControllerTest {
+
+    private static final String JOB_ID = "job-1";
+
+    @Autowired
+    MockMvc mockMvc;
+    @MockBean
+    TaskImportService taskImportService;
+
+    @Test
+    void testImportNdjson() throws Exception {
+        given(taskImportService.submit(any(), eq(ImportJob.Format.NDJSON))).willReturn(createJob());
+        this.mockMvc.perform(post("/tasks/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"taskName\":\"Certification\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/tasks/import/" + JOB_ID))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.spoolFile").doesNotExist());
+        verify(taskImportService, times(1)).submit(any(), eq(ImportJob.Format.NDJSON));
+    }
+
+    @Test
+    void testImportCsv() throws Exception {
+        given(taskImportService.submit(any(), eq(ImportJob.Format.CSV))).willReturn(createJob());
+        this.mockMvc.perform(post("/tasks/import")
+                        .contentType("text/csv")
+                        .content("taskName,userName\nCertification,ABC\n"))
+                .andExpect(status().isAccepted());
+        verify(taskImportService, times(1)).submit(any(), eq(ImportJob.Format.CSV));
+    }
+
+    @Test
+    void testImportQueueFull() throws Exception {
+        given(taskImportService.submit(any(), any())).willThrow(new ImportQueueFullException("Import queue is full"));
+        this.mockMvc.perform(post("/tasks/import")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testGetImportJob() throws Exception {
+        ImportJob job = createJob();
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setRowsProcessed(1000);
+        job.setElapsedMillis(500);
+        given(taskImportService.findJobById(JOB_ID)).willReturn(job);
+        this.mockMvc.perform(get("/tasks/import/{id}", JOB_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsProcessed").value(1000))
+                .andExpect(jsonPath("$.rowsPerSecond").value(2000.0));
+    }
+
+    @Test
+    void testGetUnknownImportJob() throws Exception {
+        given(taskImportService.findJobById("missing"))
+                .willThrow(new ImportJobNotFoundException("Import job does not exist with id: missing"));
+        this.mockMvc.perform(get("/tasks/import/{id}", "missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ImportJob createJob() {
+        ImportJob job = new ImportJob();
+        job.setId(JOB_ID);
+        job.setStatus(ImportJob.Status.QUEUED);
+        job.setFormat(ImportJob.Format.NDJSON);
+        job.setSpoolFile("/tmp/" + JOB_ID);
+        return job;
+    }
+}
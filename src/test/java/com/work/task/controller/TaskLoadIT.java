@@ -0,0 +1,335 @@
+package com.work.task.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of the task endpoints against a running application, run by mvn -Ploadtest verify
+ * which starts and stops the application around it.
+ * <p>
+ * Requests follow an open model: they are sent at a constant arrival rate whatever the response
+ * times, and latency is measured from the scheduled send time so that a stalled server is not
+ * hidden by a generator waiting on it (coordinated omission). The mix is weighted towards reads:
+ * getOneTask, the user, status and text searches, addTask, patchTask and deleteTaskById.
+ * <p>
+ * Latency percentiles (HdrHistogram), throughput and error rates are written per operation to
+ * target/loadtest, results.json and one .hgrm percentile distribution per operation, and compared
+ * with the baseline: the test fails when an error rate is above loadtest.max-error-rate or a p50 or
+ * p99 is worse than the baseline by more than loadtest.threshold. Percentiles are only compared
+ * when the operation has enough samples for them to be stable.
+ */
+class TaskLoadIT {
+    private static final String[] USERS = {"load-user-0", "load-user-1", "load-user-2", "load-user-3", "load-user-4"};
+    private static final String[] STATUSES = {"To Do", "In Progress", "Done"};
+    private static final int MAX_OUTSTANDING = 10_000;
+    private static final int SEED_CONCURRENCY = 8;
+    /** percentiles of operations with fewer samples are too noisy to be compared with the baseline */
+    private static final int MIN_SAMPLES_FOR_P50 = 100;
+    private static final int MIN_SAMPLES_FOR_P99 = 500;
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String baseUrl = System.getProperty("loadtest.base-url", "http://localhost:8080");
+    private final int rate = Integer.getInteger("loadtest.rate", 50);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup-seconds", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration-seconds", 30);
+    private final int seedTasks = Integer.getInteger("loadtest.seed-tasks", 1000);
+    private final Path resultsDir = Path.of(System.getProperty("loadtest.results-dir", "target/loadtest"));
+    private final Path baseline = Path.of(System.getProperty("loadtest.baseline", "src/test/resources/loadtest-baseline.json"));
+    private final double threshold = Double.parseDouble(System.getProperty("loadtest.threshold", "0.25"));
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<Integer> ids = new ArrayList<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+
+    @Test
+    void constantArrivalRateMix() throws Exception {
+        operation("getOneTask", 45, this::getOneTask);
+        operation("searchByUserName", 10, () -> get("/tasks/search/user/" + user()));
+        operation("searchTasks", 10, () -> get("/tasks/search?status=" + status().replace(" ", "%20") + "&size=20"));
+        operation("searchByText", 10, () -> get("/tasks/search/text?q=report&size=20"));
+        operation("addTask", 12, this::addTask);
+        operation("patchTask", 10, this::patchTask);
+        operation("deleteTaskById", 3, this::deleteTask);
+        seed();
+
+        run(warmupSeconds);
+        operations.values().forEach(Operation::reset);
+        long start = System.nanoTime();
+        run(durationSeconds);
+        awaitOutstanding();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        ObjectNode results = report(seconds);
+        Files.createDirectories(resultsDir);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultsDir.resolve("results.json").toFile(), results);
+        List<String> failures = check(results);
+        failures.forEach(System.out::println);
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    /**
+     * Sends requests at the configured rate for the given time, each operation picked by weight
+     */
+    private void run(int seconds) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long count = (long) rate * seconds;
+        int totalWeight = operations.values().stream().mapToInt(operation -> operation.weight).sum();
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick(ThreadLocalRandom.current().nextInt(totalWeight));
+            if (outstanding.incrementAndGet() > MAX_OUTSTANDING) {
+                outstanding.decrementAndGet();
+                operation.errors.incrementAndGet();
+                continue;
+            }
+            operation.request.send().whenComplete((status, error) -> {
+                outstanding.decrementAndGet();
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                operation.recorder.recordValue(Math.min(Math.max(1, micros), MAX_LATENCY_MICROS));
+                operation.count.incrementAndGet();
+                if (error != null || status >= 400) {
+                    operation.errors.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private ObjectNode report(double seconds) throws IOException {
+        ObjectNode results = objectMapper.createObjectNode();
+        results.put("rate", rate);
+        results.put("durationSeconds", durationSeconds);
+        ObjectNode byOperation = results.putObject("operations");
+        long total = 0;
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            Operation operation = entry.getValue();
+            Histogram histogram = operation.recorder.getIntervalHistogram();
+            try (PrintStream out = new PrintStream(Files.newOutputStream(
+                    Files.createDirectories(resultsDir).resolve(entry.getKey() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+            long count = operation.count.get();
+            total += count;
+            ObjectNode node = byOperation.putObject(entry.getKey());
+            node.put("count", count);
+            node.put("throughput", count / seconds);
+            node.put("errorRate", count == 0 ? 0 : (double) operation.errors.get() / count);
+            node.put("p50", histogram.getValueAtPercentile(50) / 1000.0);
+            node.put("p90", histogram.getValueAtPercentile(90) / 1000.0);
+            node.put("p99", histogram.getValueAtPercentile(99) / 1000.0);
+            node.put("p999", histogram.getValueAtPercentile(99.9) / 1000.0);
+            node.put("max", histogram.getMaxValue() / 1000.0);
+            System.out.printf("%-16s %6d req %8.1f req/s  p50 %7.2f ms  p99 %8.2f ms  max %8.2f ms  errors %.2f%%%n",
+                    entry.getKey(), count, node.get("throughput").asDouble(), node.get("p50").asDouble(),
+                    node.get("p99").asDouble(), node.get("max").asDouble(), node.get("errorRate").asDouble() * 100);
+        }
+        results.put("throughput", total / seconds);
+        return results;
+    }
+
+    private List<String> check(JsonNode results) throws IOException {
+        List<String> failures = new ArrayList<>();
+        results.get("operations").fields().forEachRemaining(entry -> {
+            double errorRate = entry.getValue().get("errorRate").asDouble();
+            if (errorRate > maxErrorRate) {
+                failures.add(String.format("ERRORS %s: %.2f%% of requests failed", entry.getKey(), errorRate * 100));
+            }
+        });
+        if (!Files.exists(baseline)) {
+            System.out.println("No load test baseline at " + baseline + ", copy " + resultsDir.resolve("results.json")
+                    + " there to start tracking regressions");
+            return failures;
+        }
+        JsonNode baseRun = objectMapper.readTree(baseline.toFile());
+        if (baseRun.get("rate").asInt() != rate) {
+            System.out.println("Load test baseline was recorded at " + baseRun.get("rate") + " req/s, not compared");
+            return failures;
+        }
+        JsonNode base = baseRun.get("operations");
+        results.get("operations").fields().forEachRemaining(entry -> {
+            long count = entry.getValue().get("count").asLong();
+            List<String> percentiles = count >= MIN_SAMPLES_FOR_P99 ? List.of("p50", "p99")
+                    : count >= MIN_SAMPLES_FOR_P50 ? List.of("p50") : List.of();
+            for (String percentile : percentiles) {
+                double value = entry.getValue().get(percentile).asDouble();
+                double baseValue = base.path(entry.getKey()).path(percentile).asDouble(0);
+                if (baseValue > 0 && (value - baseValue) / baseValue > threshold) {
+                    failures.add(String.format("REGRESSION %s %s: %.2f -> %.2f ms (%.1f%% worse)", entry.getKey(),
+                            percentile, baseValue, value, (value - baseValue) / baseValue * 100));
+                }
+            }
+        });
+        return failures;
+    }
+
+    /**
+     * Creates the tasks read and updated by the test, a few requests at a time
+     */
+    private void seed() throws Exception {
+        for (int i = 0; i < seedTasks; i += SEED_CONCURRENCY) {
+            List<CompletableFuture<HttpResponse<String>>> created = new ArrayList<>();
+            for (int j = i; j < Math.min(seedTasks, i + SEED_CONCURRENCY); j++) {
+                created.add(client.sendAsync(post("/tasks/addTask", newTask()), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : created) {
+                ids.add(readId(response.get(30, TimeUnit.SECONDS).body()));
+            }
+        }
+    }
+
+    private CompletableFuture<Integer> getOneTask() {
+        return get("/tasks/" + id());
+    }
+
+    private CompletableFuture<Integer> addTask() {
+        return client.sendAsync(post("/tasks/addTask", newTask()), HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() == 200) {
+                        synchronized (ids) {
+                            ids.add(readId(response.body()));
+                        }
+                    }
+                    return response.statusCode();
+                });
+    }
+
+    private CompletableFuture<Integer> patchTask() {
+        String body = "{\"taskStatus\":\"" + status() + "\"}";
+        return send(HttpRequest.newBuilder(uri("/tasks/" + id()))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(body)).build());
+    }
+
+    private CompletableFuture<Integer> deleteTask() {
+        Integer id;
+        synchronized (ids) {
+            id = ids.size() > seedTasks / 2 ? ids.remove(ThreadLocalRandom.current().nextInt(ids.size())) : null;
+        }
+        return id == null ? getOneTask() : send(HttpRequest.newBuilder(uri("/tasks/" + id)).DELETE().build());
+    }
+
+    private CompletableFuture<Integer> get(String path) {
+        return send(HttpRequest.newBuilder(uri(path)).GET().build());
+    }
+
+    private CompletableFuture<Integer> send(HttpRequest request) {
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private String newTask() {
+        int n = ThreadLocalRandom.current().nextInt(1_000_000);
+        return "{\"taskName\":\"Load task " + n + "\",\"taskDescription\":\"Weekly report number " + n
+                + "\",\"taskStatus\":\"" + status() + "\",\"userName\":\"" + user() + "\"}";
+    }
+
+    private int id() {
+        synchronized (ids) {
+            return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+    }
+
+    private static String user() {
+        return USERS[ThreadLocalRandom.current().nextInt(USERS.length)];
+    }
+
+    private static String status() {
+        return STATUSES[ThreadLocalRandom.current().nextInt(STATUSES.length)];
+    }
+
+    private int readId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asInt();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected addTask response: " + body, e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private void operation(String name, int weight, Request request) {
+        operations.put(name, new Operation(weight, request));
+    }
+
+    private Operation pick(int random) {
+        for (Operation operation : operations.values()) {
+            random -= operation.weight;
+            if (random < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void awaitOutstanding() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (outstanding.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        CompletableFuture<Integer> send();
+    }
+
+    private static final class Operation {
+        private final int weight;
+        private final Request request;
+        /** latencies in microseconds */
+        private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Operation(int weight, Request request) {
+            this.weight = weight;
+            this.request = request;
+        }
+
+        private void reset() {
+            recorder.reset();
+            count.set(0);
+            errors.set(0);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.work.task.controller;
+
+import com.work.task.config.TaskRateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskRateLimitFilterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final TaskRateLimitProperties properties = new TaskRateLimitProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TaskRateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties.setExpensive(new TaskRateLimitProperties.Budget(2, 3));
+        properties.setCheap(new TaskRateLimitProperties.Budget(10, 5));
+        properties.setMaxConcurrentExpensive(1);
+        properties.setApiKeys(Set.of("a", "b"));
+        filter = new TaskRateLimitFilter();
+        ReflectionTestUtils.setField(filter, "properties", properties);
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        filter.nanoClock = now::get;
+        filter.start();
+    }
+
+    @Test
+    void testExpensiveBudgetIsPerClientAndRefills() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, get("/tasks/", "a").getStatus());
+        }
+        MockHttpServletResponse limited = get("/tasks/", "a");
+        assertEquals(429, limited.getStatus());
+        assertEquals("1", limited.getHeader(HttpHeaders.RETRY_AFTER));
+
+        assertEquals(200, get("/tasks/", "b").getStatus());
+        assertEquals(200, get("/tasks/1", "a").getStatus());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(200, get("/tasks/", "a").getStatus());
+        assertEquals(429, get("/tasks/search/user/x", "a").getStatus());
+        assertEquals(2.0, meterRegistry.get("task.requests.rejected").tag("reason", "rate-limit").counter().count());
+    }
+
+    @Test
+    void testUnknownKeysShareTheBudgetOfTheirAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, get("/tasks/", "random-" + i).getStatus());
+        }
+        assertEquals(429, get("/tasks/", "random-3").getStatus());
+        assertEquals(429, get("/tasks/", null).getStatus());
+        assertEquals(200, get("/tasks/", "a").getStatus());
+
+        MockHttpServletRequest elsewhere = request("/tasks/", "random-4");
+        elsewhere.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(elsewhere, response, new MockFilterChain());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    void testExpensiveRequestsAreShedAboveConcurrencyLimit() throws Exception {
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        FilterChain chain = (request, response) -> nested[0] = get("/tasks/stats", "b");
+        filter.doFilter(request("/tasks/", "a"), new MockHttpServletResponse(), chain);
+
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, get("/tasks/stats", "b").getStatus());
+    }
+
+    @Test
+    void testStreamedResponsesHoldTheirSlotUntilComplete() throws Exception {
+        MockHttpServletRequest stream = request("/tasks/export", "a");
+        stream.setAsyncSupported(true);
+        filter.doFilter(stream, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        assertEquals(503, get("/tasks/stats", "b").getStatus());
+        stream.getAsyncContext().complete();
+        assertEquals(200, get("/tasks/stats", "b").getStatus());
+    }
+
+    @Test
+    void testRouteClasses() {
+        assertTrue(TaskRateLimitFilter.isExpensive("GET", "/tasks/"));
+        assertTrue(TaskRateLimitFilter.isExpensive("GET", "/tasks/search/text"));
+        assertTrue(TaskRateLimitFilter.isExpensive("POST", "/tasks/addTasks/bulk"));
+        assertTrue(TaskRateLimitFilter.isExpensive("PATCH", "/tasks"));
+        assertFalse(TaskRateLimitFilter.isExpensive("GET", "/tasks/42"));
+        assertFalse(TaskRateLimitFilter.isExpensive("PATCH", "/tasks/42"));
+        assertFalse(TaskRateLimitFilter.isExpensive("POST", "/tasks/addTask"));
+    }
+
+    private MockHttpServletResponse get(String path, String apiKey) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(path, apiKey), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String path, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,81 @@
+package com.work.task.service;
+
+import com.work.task.config.TaskChangeProperties;
+import com.work.task.entity.TaskChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskChangeFeedTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private TaskChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        TaskChangeProperties properties = new TaskChangeProperties();
+        properties.setCapacity(100);
+        properties.setDispatchThreads(1);
+        properties.setSendTimeout(Duration.ofMillis(200));
+        properties.setHeartbeat(Duration.ofHours(1));
+        feed = new TaskChangeFeed();
+        ReflectionTestUtils.setField(feed, "properties", properties);
+        ReflectionTestUtils.setField(feed, "meterRegistry", meterRegistry);
+        feed.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        feed.stop();
+    }
+
+    @Test
+    void testStalledSubscriberIsDroppedWithoutBlockingTheOthers() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        feed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                // a client which stopped reading
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0L);
+        BlockingQueue<SseEmitter.SseEventBuilder> received = new LinkedBlockingQueue<>();
+        feed.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                received.add(builder);
+            }
+        }, 0L);
+
+        feed.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 1, null));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        feed.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 2, null));
+
+        // the only dispatcher thread is blocked, the healthy subscriber still gets both events
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        assertNotNull(received.poll(5, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("task.changes.stalled").counter().count());
+        assertEquals(1.0, meterRegistry.get("task.changes.subscribers").gauge().value());
+    }
+}
@@ -0,0 +1,83 @@
+package com.work.task.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.work.task.config.TaskExportProperties;
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskStatus;
+import com.work.task.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class TaskExportServiceTest {
+
+    @Autowired
+    TaskRepository taskRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private TaskExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new TaskExportService();
+        ReflectionTestUtils.setField(exportService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(exportService, "properties", new TaskExportProperties());
+        ReflectionTestUtils.setField(exportService, "meterRegistry", new SimpleMeterRegistry());
+        exportService.registerMetrics();
+    }
+
+    @Test
+    void testDueDatePriorityAndParentAreExported() throws Exception {
+        Task parent = taskRepository.save(createTask("Parent", null, null, null));
+        Instant dueAt = Instant.parse("2026-11-02T09:30:00Z");
+        Task child = taskRepository.saveAndFlush(createTask("Child", dueAt, 3, parent.getId()));
+
+        String[] lines = export(TaskExportService.Format.CSV, parent.getId() - 1).split("\r\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].endsWith(",dueAt,priority,parentId"), lines[0]);
+        assertTrue(lines[1].endsWith(",,,"), lines[1]);
+        assertTrue(lines[2].endsWith(",2026-11-02T09:30:00Z,3," + parent.getId()), lines[2]);
+
+        String[] rows = export(TaskExportService.Format.NDJSON, parent.getId() - 1).split("\n");
+        JsonNode top = new ObjectMapper().readTree(rows[0]);
+        assertTrue(top.get("dueAt").isNull() && top.get("priority").isNull() && top.get("parentId").isNull());
+        JsonNode sub = new ObjectMapper().readTree(rows[1]);
+        assertEquals(child.getId(), sub.get("id").asInt());
+        assertEquals(dueAt.toString(), sub.get("dueAt").asText());
+        assertEquals(3, sub.get("priority").asInt());
+        assertEquals(parent.getId(), sub.get("parentId").asInt());
+    }
+
+    private String export(TaskExportService.Format format, int after) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(format, null, "export-test", after, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static Task createTask(String taskName, Instant dueAt, Integer priority, Integer parentId) {
+        Task task = new Task();
+        task.setTaskName(taskName);
+        task.setTaskStatus(TaskStatus.TODO);
+        task.setUserName("export-test");
+        task.setDueAt(dueAt);
+        task.setPriority(priority);
+        task.setParentId(parentId);
+        return task;
+    }
+}
@@ -0,0 +1,163 @@
+package com.work.task.service;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.entity.TaskStatus;
+import com.work.task.repository.TaskRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskMemoryIndexTest {
+
+    private final TaskRepository taskRepository = Mockito.mock(TaskRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TaskMemoryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskMemoryIndex();
+        ReflectionTestUtils.setField(index, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(index, "entityManager", Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(index, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "stripeCount", 4);
+        ReflectionTestUtils.setField(index, "tombstoneTtl", Duration.ofMinutes(10));
+        index.createStripes();
+    }
+
+    @Test
+    void testWarmLoadsTasksAndServesLookupsOrderedById() {
+        Mockito.when(taskRepository.streamByIdGreaterThan(0)).thenReturn(IntStream.rangeClosed(1, 1000)
+                .mapToObj(id -> task(id, id % 2 == 0 ? "even" : "odd", id % 3 == 0 ? TaskStatus.DONE : TaskStatus.TODO)));
+        assertFalse(index.isReady());
+
+        index.warm();
+
+        assertTrue(index.isReady());
+        assertEquals(1000, index.size());
+        List<Task> even = index.findByUserName("even");
+        assertEquals(500, even.size());
+        assertEquals(2, even.get(0).getId());
+        assertEquals(1000, even.get(499).getId());
+        assertEquals("task 2", even.get(0).getTaskName());
+        assertEquals(333, index.findByTaskStatus(TaskStatus.DONE).size());
+        assertTrue(index.findByUserName("nobody").isEmpty());
+        assertEquals(1000.0, meterRegistry.get("task.memory.index.tasks").gauge().value());
+        assertTrue(meterRegistry.get("task.memory.index.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    void testChangesKeepSecondaryIndexesConsistent() {
+        Mockito.when(taskRepository.streamByIdGreaterThan(0)).thenReturn(Stream.empty());
+        index.warm();
+        for (int id = 1; id <= 100; id++) {
+            index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, id, task(id, "alice", TaskStatus.TODO)));
+        }
+
+        Task moved = task(7, "bob", TaskStatus.IN_PROGRESS);
+        moved.setVersion(1);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 7, moved));
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 8, null));
+
+        assertEquals(98, index.findByUserName("alice").size());
+        assertEquals(List.of(7), index.findByUserName("bob").stream().map(Task::getId).toList());
+        assertEquals(TaskStatus.IN_PROGRESS, index.findByUserName("bob").get(0).getTaskStatus());
+        assertEquals(98, index.findByTaskStatus(TaskStatus.TODO).size());
+
+        Task filter = new Task();
+        filter.setUserName("alice");
+        filter.setTaskStatus(TaskStatus.TODO);
+        Task changes = new Task();
+        changes.setTaskStatus(TaskStatus.DONE);
+        changes.setRevision(42);
+        TaskChangeEvent bulk = new TaskChangeEvent(TaskChangeEvent.Type.BULK_UPDATED, 0, changes);
+        bulk.setFilter(filter);
+        index.onTaskChange(bulk);
+
+        assertTrue(index.findByTaskStatus(TaskStatus.TODO).isEmpty());
+        List<Task> done = index.findByTaskStatus(TaskStatus.DONE);
+        assertEquals(98, done.size());
+        assertEquals("alice", done.get(0).getUserName());
+        assertEquals(1, done.get(0).getVersion());
+        assertEquals(42, done.get(0).getRevision());
+        assertEquals(99, index.size());
+    }
+
+    @Test
+    void testEventsArrivingOutOfOrderDoNotUndoNewerChanges() {
+        Mockito.when(taskRepository.streamByIdGreaterThan(0)).thenReturn(Stream.empty());
+        index.warm();
+        Task created = task(1, "alice", TaskStatus.TODO);
+        Task done = task(1, "alice", TaskStatus.DONE);
+        done.setVersion(1);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 1, created));
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, done));
+        Task inProgress = task(1, "alice", TaskStatus.IN_PROGRESS);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, inProgress));
+
+        assertEquals(TaskStatus.DONE, index.findByUserName("alice").get(0).getTaskStatus());
+        assertTrue(index.findByTaskStatus(TaskStatus.IN_PROGRESS).isEmpty());
+
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 1, null));
+        Task late = task(1, "alice", TaskStatus.DONE);
+        late.setVersion(2);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, late));
+
+        assertTrue(index.findByUserName("alice").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testReadsDuringWritesSeeWholeStripes() throws Exception {
+        Mockito.when(taskRepository.streamByIdGreaterThan(0)).thenReturn(Stream.empty());
+        index.warm();
+        for (int id = 1; id <= 200; id++) {
+            index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, id, task(id, "alice", TaskStatus.TODO)));
+        }
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            // adds and removes bob's tasks, growing and shrinking the maps of the stripes alice's are in
+            for (int round = 0; writing.get() && round < 2000; round++) {
+                int id = 201 + round;
+                index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, id, task(id, "bob", TaskStatus.TODO)));
+                index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, id, null));
+            }
+        });
+        try {
+            for (int read = 0; read < 500; read++) {
+                List<Task> alice = index.findByUserName("alice");
+                assertEquals(200, alice.size());
+                assertEquals(200, alice.get(199).getId());
+                assertTrue(index.size() >= 200);
+            }
+        } finally {
+            writing.set(false);
+            writer.get();
+        }
+    }
+
+    private static Task task(int id, String userName, TaskStatus status) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTaskName("task " + id);
+        task.setTaskDescription("description " + id);
+        task.setUserName(userName);
+        task.setTaskStatus(status);
+        return task;
+    }
+}
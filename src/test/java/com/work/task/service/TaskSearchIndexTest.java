@@ -0,0 +1,125 @@
+package com.work.task.service;
+
+import com.work.task.entity.Task;
+import com.work.task.entity.TaskChangeEvent;
+import com.work.task.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskSearchIndexTest {
+
+    private final TaskRepository taskRepository = Mockito.mock(TaskRepository.class);
+    private TaskSearchIndex index;
+
+    @TempDir
+    Path indexDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        index = new TaskSearchIndex();
+        ReflectionTestUtils.setField(index, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(index, "entityManager", Mockito.mock(EntityManager.class));
+        ReflectionTestUtils.setField(index, "indexDir", indexDir.toString());
+        ReflectionTestUtils.setField(index, "commitInterval", Duration.ofHours(1));
+        ReflectionTestUtils.setField(index, "tombstoneTtl", Duration.ofMinutes(10));
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+    }
+
+    @Test
+    void testRebuildReplacesTasksIndexedMeanwhile() {
+        Task task = task(1, "Kubernetes upgrade");
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 1, task));
+        Mockito.when(taskRepository.streamByIdGreaterThan(0)).thenAnswer(invocation -> {
+            // the task is written again while the rebuild streams the table
+            index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, task));
+            return Stream.of(task);
+        });
+
+        assertEquals(1, index.rebuild());
+
+        assertEquals(List.of(1), index.search("kubernetes", PageRequest.of(0, 10)).getContent());
+    }
+
+    @Test
+    void testEventsArrivingOutOfOrderDoNotUndoNewerChanges() {
+        Task renamed = task(1, "Kubernetes upgrade");
+        renamed.setVersion(1);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, renamed));
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 1, task(1, "Release notes")));
+
+        assertEquals(List.of(1), index.search("kubernetes", PageRequest.of(0, 10)).getContent());
+        assertTrue(index.search("release", PageRequest.of(0, 10)).getContent().isEmpty());
+
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.DELETED, 1, null));
+        Task late = task(1, "Kubernetes upgrade");
+        late.setVersion(2);
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.UPDATED, 1, late));
+
+        assertTrue(index.search("kubernetes", PageRequest.of(0, 10)).getContent().isEmpty());
+    }
+
+    @Test
+    void testDeepPagesAreBoundedByTheIndexSize() {
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 1, task(1, "Kubernetes upgrade")));
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 2, task(2, "Kubernetes rollback")));
+
+        Page<Integer> beyond = index.search("kubernetes", PageRequest.of(100_000, 1000));
+        assertTrue(beyond.getContent().isEmpty());
+        assertEquals(2, beyond.getTotalElements());
+        assertEquals(1, index.search("kubernetes", PageRequest.of(1, 1)).getContent().size());
+        assertEquals(2, index.search("kubernetes", PageRequest.of(0, 1000)).getContent().size());
+    }
+
+    @Test
+    void testChangesAreCommittedToDisk() throws IOException {
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 1, task(1, "Kubernetes upgrade")));
+        index.onTaskChange(new TaskChangeEvent(TaskChangeEvent.Type.CREATED, 2, task(2, "Release notes")));
+        assertEquals(0, committedDocs());
+
+        index.commit();
+
+        assertEquals(2, committedDocs());
+    }
+
+    private int committedDocs() throws IOException {
+        try (FSDirectory directory = FSDirectory.open(indexDir)) {
+            if (!DirectoryReader.indexExists(directory)) {
+                return 0;
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                return reader.numDocs();
+            }
+        }
+    }
+
+    private static Task task(int id, String taskName) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTaskName(taskName);
+        task.setTaskDescription("description " + id);
+        return task;
+    }
+}
@@ -0,0 +1,101 @@
+package com.work.task.service;
+
+import com.work.task.config.TaskWriteBatchProperties;
+import com.work.task.entity.Task;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TaskWriteBatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(32);
+    private TaskWriteBatcher batcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        batcher.stop();
+    }
+
+    @Test
+    void testConcurrentSavesAreCombinedAndEachCallerGetsItsId() throws Exception {
+        batcher = start(tasks -> {
+            batchSizes.add(tasks.size());
+            tasks.forEach(task -> task.setId(ids.incrementAndGet()));
+            return tasks;
+        }, task -> {
+            throw new AssertionError("no fallback expected");
+        });
+
+        List<Future<Task>> saves = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Task task = new Task();
+            task.setTaskName("task " + i);
+            saves.add(callers.submit(() -> batcher.save(task)));
+        }
+        Set<Integer> savedIds = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < saves.size(); i++) {
+            Task saved = saves.get(i).get();
+            assertEquals("task " + i, saved.getTaskName());
+            savedIds.add(saved.getId());
+        }
+
+        assertEquals(200, savedIds.size());
+        assertEquals(200, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+        assertTrue(batchSizes.size() < 200, "writes were not combined: " + batchSizes);
+        // a batch is recorded after its callers are answered, so wait for the flushers to finish
+        batcher.stop();
+        assertEquals(batchSizes.size(), meterRegistry.get("task.write.batch.size").summary().count());
+    }
+
+    @Test
+    void testFailedBatchIsRetriedWriteByWrite() {
+        batcher = start(tasks -> {
+            tasks.forEach(task -> task.setId(ids.incrementAndGet()));
+            throw new IllegalStateException("batch rolled back");
+        }, task -> {
+            if (task.getTaskName() == null) {
+                throw new IllegalArgumentException("taskName is required");
+            }
+            assertEquals(0, task.getId());
+            task.setId(ids.incrementAndGet());
+            return task;
+        });
+
+        Task valid = new Task();
+        valid.setTaskName("valid");
+        assertTrue(batcher.save(valid).getId() > 0);
+        assertThrows(IllegalArgumentException.class, () -> batcher.save(new Task()));
+        assertEquals(2, meterRegistry.get("task.write.batch.fallbacks").counter().count());
+    }
+
+    private TaskWriteBatcher start(Function<List<Task>, List<Task>> batchWriter,
+                                   Function<Task, Task> singleWriter) {
+        TaskWriteBatchProperties properties = new TaskWriteBatchProperties();
+        properties.setMaxBatchSize(10);
+        properties.setMaxDelay(Duration.ofMillis(20));
+        TaskWriteBatcher started = new TaskWriteBatcher(properties, meterRegistry, batchWriter, singleWriter);
+        started.start();
+        return started;
+    }
+}